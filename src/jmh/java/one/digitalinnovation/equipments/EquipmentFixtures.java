@@ -0,0 +1,65 @@
+package one.digitalinnovation.equipments;
+
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EquipmentFixtures {
+
+    private static final EquipmentType[] TYPES = EquipmentType.values();
+    private static final String[] BRANDS = {"FLYGT", "WEG", "KSB", "ABS", "VOITH", "SIEMENS"};
+    private static final long SEEDED_ID_OFFSET = 1_000_000_000L;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final String SEED_SQL = "insert into equipment (id, np, brand, model, type, max, quantity, version, updated_at) values (?, ?, ?, ?, ?, ?, ?, 0, current_timestamp)";
+
+    private EquipmentFixtures() {
+    }
+
+    public static EquipmentDTO equipment(long id, int sequence) {
+        EquipmentType type = TYPES[sequence % TYPES.length];
+        return EquipmentDTO.builder()
+                .id(id)
+                .np(type.getInitialCode() + String.format("%04d", sequence % 10_000))
+                .brand(BRANDS[sequence % BRANDS.length])
+                .model("NP " + (3000 + sequence % 500))
+                .type(type)
+                .max(500)
+                .quantity(sequence % 100)
+                .build();
+    }
+
+    public static List<EquipmentDTO> equipments(int size) {
+        List<EquipmentDTO> equipments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            equipments.add(equipment(i + 1, i));
+        }
+        return equipments;
+    }
+
+    /**
+     * Inserts {@code rows} equipments through JDBC batches, with ids far above the sequence and NPs that
+     * never collide with valid codes, so benchmarks can still create equipments through the service.
+     */
+    public static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            EquipmentDTO equipment = equipment(SEEDED_ID_OFFSET + i, i);
+            batch.add(new Object[]{equipment.getId(), seededNp(i), equipment.getBrand(), equipment.getModel(),
+                    equipment.getType().name(), equipment.getMax(), equipment.getQuantity()});
+            if (batch.size() == SEED_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(SEED_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(SEED_SQL, batch);
+        }
+    }
+
+    public static String seededNp(int index) {
+        return String.format("%09d", index);
+    }
+}
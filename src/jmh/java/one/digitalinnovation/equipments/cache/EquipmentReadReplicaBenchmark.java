@@ -0,0 +1,108 @@
+package one.digitalinnovation.equipments.cache;
+
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read replica against the catalogue held as a {@code List<Equipment>}. The setup prints the heap retained by
+ * each, measured after a full collection: run with {@code -prof gc} to compare the allocation of the lookups too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:+UseParallelGC"})
+public class EquipmentReadReplicaBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private List<Equipment> equipments;
+    private EquipmentReadReplica equipmentReadReplica;
+    private String[] nps;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long base = usedHeap();
+        equipments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Equipment equipment = EquipmentMapper.INSTANCE.toModel(EquipmentFixtures.equipment(i + 1, i));
+            // one string per row, as Hibernate reads them from the result set
+            equipment.setNp(EquipmentFixtures.seededNp(i));
+            equipment.setBrand(new String(equipment.getBrand().toCharArray()));
+            equipment.setModel(new String(equipment.getModel().toCharArray()));
+            equipment.setVersion(0L);
+            equipment.setUpdatedAt(Instant.now());
+            equipments.add(equipment);
+        }
+        long listBytes = usedHeap() - base;
+
+        base = usedHeap();
+        // the loader is not used: the columns are built from the list directly
+        equipmentReadReplica = new EquipmentReadReplica(null, null, null, null, null, false);
+        equipmentReadReplica.install(EquipmentReadReplica.load(equipments.iterator()));
+        long replicaBytes = usedHeap() - base;
+        System.out.printf("%nList<Equipment>: %d bytes per row, read replica: %d bytes per row (%d estimated)%n",
+                listBytes / rows, replicaBytes / rows, equipmentReadReplica.memoryBytes() / rows);
+
+        nps = new String[1024];
+        for (int i = 0; i < nps.length; i++) {
+            nps[i] = EquipmentFixtures.seededNp((int) ((long) i * rows / nps.length));
+        }
+    }
+
+    @Benchmark
+    public EquipmentDTO replicaFindByNp() {
+        return equipmentReadReplica.findByNp(nps[next++ & (nps.length - 1)]).orElse(null);
+    }
+
+    @Benchmark
+    public List<EquipmentDTO> replicaFindByType() {
+        return equipmentReadReplica.findByType(EquipmentType.MOTOR, rows / 2, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Equipment> listFindByType() {
+        List<Equipment> page = new ArrayList<>(PAGE_SIZE);
+        for (Equipment equipment : equipments) {
+            if (equipment.getType() == EquipmentType.MOTOR && equipment.getId() > rows / 2) {
+                page.add(equipment);
+                if (page.size() == PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
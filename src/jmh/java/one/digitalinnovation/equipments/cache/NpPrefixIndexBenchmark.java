@@ -0,0 +1,46 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NpPrefixIndexBenchmark {
+
+    @Param({"14", "14015", "1401528"})
+    private String prefix;
+
+    private NpPrefixIndex npPrefixIndex;
+
+    @Setup
+    public void setUp() {
+        // the loader is not used: the index is filled with every well-formed NP directly
+        npPrefixIndex = new NpPrefixIndex(null, null, new SimpleMeterRegistry());
+        for (int i = 0; i < 70_000; i++) {
+            npPrefixIndex.add(EquipmentFixtures.equipment(i, i).getNp());
+        }
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return npPrefixIndex.suggest(prefix, 10);
+    }
+}
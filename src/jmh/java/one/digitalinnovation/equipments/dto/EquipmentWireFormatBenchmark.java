@@ -0,0 +1,87 @@
+package one.digitalinnovation.equipments.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue (de)serialization in each negotiated wire format. The payload size of every format is printed
+ * by the setup; the binary formats are configured as in WireFormatConfig, with enums written as ordinals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquipmentWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<EquipmentDTO> equipments;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = objectMapper(format);
+        TypeReference<List<EquipmentDTO>> listType = new TypeReference<List<EquipmentDTO>>() {
+        };
+        writer = objectMapper.writerFor(listType);
+        reader = objectMapper.readerFor(listType);
+        equipments = EquipmentFixtures.equipments(size);
+        payload = writer.writeValueAsBytes(equipments);
+        System.out.printf("%n%s payload for %d equipments: %d bytes%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(equipments);
+    }
+
+    @Benchmark
+    public List<EquipmentDTO> deserialize() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    private static ObjectMapper objectMapper(String format) {
+        switch (format) {
+            case "cbor":
+                return binary(new CBORFactory());
+            case "smile":
+                return binary(new SmileFactory());
+            default:
+                return new ObjectMapper();
+        }
+    }
+
+    private static ObjectMapper binary(JsonFactory factory) {
+        return new ObjectMapper(factory).enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+    }
+}
@@ -0,0 +1,47 @@
+package one.digitalinnovation.equipments.mapper;
+
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquipmentMapperBenchmark {
+
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    private EquipmentDTO equipmentDTO;
+    private Equipment equipment;
+
+    @Setup
+    public void setUp() {
+        equipmentDTO = EquipmentFixtures.equipment(1L, 2830);
+        equipment = equipmentMapper.toModel(equipmentDTO);
+    }
+
+    @Benchmark
+    public Equipment toModel() {
+        return equipmentMapper.toModel(equipmentDTO);
+    }
+
+    @Benchmark
+    public EquipmentDTO toDTO() {
+        return equipmentMapper.toDTO(equipment);
+    }
+}
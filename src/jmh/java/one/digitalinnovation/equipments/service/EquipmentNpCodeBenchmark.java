@@ -0,0 +1,69 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NP validation as done on every create and import row, against the former prefix-only check.
+ * Run with {@code -prof gc} to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquipmentNpCodeBenchmark {
+
+    // verifyNpCode only uses the validator
+    private final EquipmentService equipmentService = new EquipmentService(null, null, null, null, null, new NpCodeValidator(false), null, null, null, null);
+    private final NpCodeValidator checkDigitValidator = new NpCodeValidator(true);
+    // 6 is the Luhn check digit of 14015283
+    private final String checkDigitNp = "140152836";
+
+    private EquipmentDTO equipmentDTO;
+
+    @Setup
+    public void setUp() {
+        equipmentDTO = EquipmentFixtures.equipment(1L, 2830);
+    }
+
+    @Benchmark
+    public boolean prefixOnlyVerifyNpCode() {
+        return equipmentDTO.getNp().startsWith(equipmentDTO.getType().getInitialCode());
+    }
+
+    @Benchmark
+    public EquipmentDTO verifyNpCode() throws EquipmentCodeException {
+        equipmentService.verifyNpCode(equipmentDTO);
+        return equipmentDTO;
+    }
+
+    @Benchmark
+    public EquipmentType validateWithCheckDigit() {
+        try {
+            return checkDigitValidator.validate(checkDigitNp);
+        } catch (EquipmentCodeException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public EquipmentType typeFromNp() {
+        return EquipmentType.fromNp(equipmentDTO.getNp());
+    }
+}
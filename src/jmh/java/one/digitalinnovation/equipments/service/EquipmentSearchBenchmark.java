@@ -0,0 +1,100 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import one.digitalinnovation.equipments.EquipmentsApplication;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Indexed search against filtering the full catalogue in memory, which is what clients did before the search existed.
+ * The setup prints the H2 query plans so the index in use can be checked next to the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EquipmentSearchBenchmark {
+
+    private static final EquipmentFilterDTO TYPE_AND_BRAND = EquipmentFilterDTO.builder()
+            .type(EquipmentType.MOTOR)
+            .brand("WEG")
+            .build();
+    private static final EquipmentFilterDTO MODEL_PREFIX = EquipmentFilterDTO.builder()
+            .model("NP 31")
+            .build();
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EquipmentService equipmentService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EquipmentsApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        equipmentService = context.getBean(EquipmentService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        EquipmentFixtures.seed(jdbcTemplate, rows);
+        jdbcTemplate.execute("analyze");
+
+        printPlan(jdbcTemplate, "select * from equipment where id > 0 and type = 'MOTOR' and brand = 'WEG' order by id limit 101");
+        printPlan(jdbcTemplate, "select * from equipment where id > 0 and model like 'NP 31%' order by id limit 101");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EquipmentPageDTO searchByTypeAndBrand() {
+        return equipmentService.searchPage(TYPE_AND_BRAND, null, null);
+    }
+
+    @Benchmark
+    public EquipmentPageDTO searchByModelPrefix() {
+        return equipmentService.searchPage(MODEL_PREFIX, null, null);
+    }
+
+    @Benchmark
+    public List<EquipmentDTO> fullScanByTypeAndBrand() {
+        return equipmentService.listAll()
+                .stream()
+                .filter(equipment -> equipment.getType() == TYPE_AND_BRAND.getType() && equipment.getBrand().equals(TYPE_AND_BRAND.getBrand()))
+                .limit(EquipmentService.DEFAULT_PAGE_SIZE)
+                .collect(Collectors.toList());
+    }
+
+    private static void printPlan(JdbcTemplate jdbcTemplate, String sql) {
+        System.out.println(jdbcTemplate.queryForObject("explain " + sql, String.class));
+    }
+}
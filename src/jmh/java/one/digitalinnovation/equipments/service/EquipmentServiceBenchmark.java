@@ -0,0 +1,116 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.EquipmentFixtures;
+import one.digitalinnovation.equipments.EquipmentsApplication;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths against an embedded H2 catalogue of {@code rows} equipments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EquipmentServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EquipmentService equipmentService;
+    private EquipmentRepository equipmentRepository;
+    private int createdSequence;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EquipmentsApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        equipmentService = context.getBean(EquipmentService.class);
+        equipmentRepository = context.getBean(EquipmentRepository.class);
+        EquipmentFixtures.seed(context.getBean(JdbcTemplate.class), rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EquipmentDTO findByNp() throws EquipmentNotFoundException {
+        return equipmentService.findByNp(randomSeededNp());
+    }
+
+    @Benchmark
+    public Optional<Equipment> findByNpFromDatabase() {
+        return equipmentRepository.findByNp(randomSeededNp());
+    }
+
+    @Benchmark
+    public List<EquipmentDTO> listAll() {
+        return equipmentService.listAll();
+    }
+
+    @Benchmark
+    public EquipmentPageDTO listFirstPage() {
+        return equipmentService.listPage(null, 100);
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        equipmentService.streamAll(blackhole::consume);
+    }
+
+    @Benchmark
+    public EquipmentDTO createAndDelete() throws EquipmentAlreadyRegisteredException, EquipmentCodeException, EquipmentNotFoundException {
+        createdSequence = (createdSequence + 1) % 10_000;
+        EquipmentDTO createdEquipment = equipmentService.createEquipment(EquipmentDTO.builder()
+                .np(EquipmentType.MOTOR.getInitialCode() + String.format("%04d", createdSequence))
+                .brand("WEG")
+                .model("W22")
+                .type(EquipmentType.MOTOR)
+                .max(500)
+                .quantity(0)
+                .build());
+        equipmentService.deleteById(createdEquipment.getId());
+        return createdEquipment;
+    }
+
+    private String randomSeededNp() {
+        return EquipmentFixtures.seededNp(ThreadLocalRandom.current().nextInt(rows));
+    }
+}
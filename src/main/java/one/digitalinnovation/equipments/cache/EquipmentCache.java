@@ -0,0 +1,77 @@
+package one.digitalinnovation.equipments.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of equipments by NP.
+ * Entries are private copies of the loaded {@link EquipmentDTO}, and every read hands out a fresh copy,
+ * so callers can never change what is cached. Misses are cached as well, with a shorter time to live.
+ */
+@Component
+public class EquipmentCache {
+
+    private static final String CACHE_NAME = "equipments.byNp";
+
+    private final Cache<String, Optional<EquipmentDTO>> equipmentsByNp;
+
+    public EquipmentCache(MeterRegistry meterRegistry,
+                          @Value("${equipments.cache.maximum-size:10000}") long maximumSize,
+                          @Value("${equipments.cache.ttl:10m}") Duration ttl,
+                          @Value("${equipments.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.equipmentsByNp = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new FoundOrMissingExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .<String, Optional<EquipmentDTO>>build(), CACHE_NAME);
+    }
+
+    public Optional<EquipmentDTO> get(String np, Function<String, Optional<EquipmentDTO>> loader) {
+        return equipmentsByNp.get(np, key -> loader.apply(key).map(EquipmentCache::snapshot))
+                .map(EquipmentCache::snapshot);
+    }
+
+    public void invalidate(String np) {
+        equipmentsByNp.invalidate(np);
+    }
+
+    private static EquipmentDTO snapshot(EquipmentDTO equipmentDTO) {
+        return equipmentDTO.toBuilder().build();
+    }
+
+    private static class FoundOrMissingExpiry implements Expiry<String, Optional<EquipmentDTO>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        FoundOrMissingExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String np, Optional<EquipmentDTO> equipment, long currentTime) {
+            return equipment.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String np, Optional<EquipmentDTO> equipment, long currentTime, long currentDuration) {
+            return expireAfterCreate(np, equipment, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String np, Optional<EquipmentDTO> equipment, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
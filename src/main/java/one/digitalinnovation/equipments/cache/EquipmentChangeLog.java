@@ -0,0 +1,146 @@
+package one.digitalinnovation.equipments.cache;
+
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory log of the committed changes to the catalogue, numbered by a monotonically increasing revision.
+ * The log is compacted by equipment: a new change replaces the previous entry of the same equipment, so it holds
+ * at most one entry per equipment changed, deletions included. Past {@code equipments.changes.max-entries}
+ * the oldest entries are dropped, and clients asking for changes older than them have to reload the catalogue.
+ * Revisions are prefixed with the start time of this instance, so revisions from before a restart
+ * or from another instance always ask for a reload. Listeners are told of every change, in revision order,
+ * while the log is locked, so they must not block.
+ */
+@Component
+public class EquipmentChangeLog {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final int maxEntries;
+    private final AtomicLong revision = new AtomicLong();
+    private final ConcurrentNavigableMap<Long, Change> changesByRevision = new ConcurrentSkipListMap<>();
+    // guarded by this
+    private final Map<Long, Change> latestChangeById = new HashMap<>();
+    private final List<Consumer<EquipmentChangeDTO>> listeners = new CopyOnWriteArrayList<>();
+    // changes up to this revision may have been dropped
+    private volatile long horizon;
+
+    public EquipmentChangeLog(@Value("${equipments.changes.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public void addListener(Consumer<EquipmentChangeDTO> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records a committed change, with the state of the equipment after it.
+     */
+    public synchronized void record(EquipmentChangeType type, EquipmentDTO equipment) {
+        Long id = equipment.getId();
+        String np = equipment.getNp();
+        Change previous = latestChangeById.get(id);
+        if (previous != null) {
+            changesByRevision.remove(previous.revision);
+            if (previous.type == EquipmentChangeType.CREATED && type == EquipmentChangeType.UPDATED) {
+                type = EquipmentChangeType.CREATED;
+            }
+        }
+        Change change = new Change(revision.get() + 1, type, id, np);
+        latestChangeById.put(id, change);
+        changesByRevision.put(change.revision, change);
+        revision.set(change.revision);
+
+        if (!listeners.isEmpty()) {
+            EquipmentChangeDTO changeDTO = new EquipmentChangeDTO(token(change.revision), type, id, np,
+                    type == EquipmentChangeType.DELETED ? null : equipment);
+            for (Consumer<EquipmentChangeDTO> listener : listeners) {
+                listener.accept(changeDTO);
+            }
+        }
+
+        while (latestChangeById.size() > maxEntries) {
+            Change oldest = changesByRevision.pollFirstEntry().getValue();
+            latestChangeById.remove(oldest.id);
+            horizon = oldest.revision;
+        }
+    }
+
+    /**
+     * Drops every change and moves to a new revision, for when the catalogue changed without its changes being recorded:
+     * clients holding an older revision are told to reload it.
+     */
+    public synchronized void reset() {
+        changesByRevision.clear();
+        latestChangeById.clear();
+        horizon = revision.incrementAndGet();
+    }
+
+    public String current() {
+        return token(revision.get());
+    }
+
+    /**
+     * Returns up to {@code limit} changes made after the given revision, oldest first,
+     * or null when they are no longer known.
+     */
+    public List<EquipmentChangeDTO> changesSince(String since, int limit) {
+        long sinceRevision = parse(since);
+        if (sinceRevision < horizon || sinceRevision > revision.get()) {
+            return null;
+        }
+        List<EquipmentChangeDTO> changes = new ArrayList<>(Math.min(limit, 64));
+        for (Change change : changesByRevision.tailMap(sinceRevision, false).values()) {
+            if (changes.size() == limit) {
+                break;
+            }
+            changes.add(new EquipmentChangeDTO(token(change.revision), change.type, change.id, change.np, null));
+        }
+        // entries dropped while iterating would be missing from the list
+        return sinceRevision < horizon ? null : changes;
+    }
+
+    private long parse(String since) {
+        int separator = since == null ? -1 : since.lastIndexOf('-');
+        if (separator < 0 || !since.regionMatches(0, epoch, 0, separator) || separator != epoch.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(since.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String token(long revision) {
+        return epoch + "-" + revision;
+    }
+
+    private static final class Change {
+
+        private final long revision;
+        private final EquipmentChangeType type;
+        private final Long id;
+        private final String np;
+
+        private Change(long revision, EquipmentChangeType type, Long id, String np) {
+            this.revision = revision;
+            this.type = type;
+            this.id = id;
+            this.np = np;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-process copy of the whole catalogue for read-heavy nodes, enabled with {@code equipments.replica.enabled}.
+ * Equipments are kept column by column in primitive arrays sorted by NP, with no object per row: ids as longs,
+ * NPs as their nine digits packed in an int as in the {@link EquipmentSnapshot}, types as ordinal bytes, and brands
+ * and models as indexes into a dictionary of their distinct values. A row takes about {@value #BYTES_PER_ROW} bytes.
+ * Lookups by NP binary search the NP column and type filters walk a per type list of rows in id order, so neither
+ * allocates beyond the equipments returned.
+ * <p>
+ * The columns are reloaded from the repository every {@code equipments.replica.refresh-interval}. In between,
+ * the changes recorded in the {@link EquipmentChangeLog} go to a small overlay that shadows the columns, so reads are
+ * never older than the last committed change. Rows whose NP cannot be packed live in the overlay as well.
+ */
+@Slf4j
+@Component
+public class EquipmentReadReplica implements SmartInitializingSingleton {
+
+    static final int BYTES_PER_ROW = 49;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_UPDATE = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final EquipmentType[] TYPES = EquipmentType.values();
+
+    private final EquipmentRepository equipmentRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private volatile Generation generation;
+    // receives the changes recorded while a refresh reads the repository, guarded by this
+    private Overlay pending;
+
+    public EquipmentReadReplica(EquipmentRepository equipmentRepository,
+                                EntityManager entityManager,
+                                TransactionTemplate transactionTemplate,
+                                EquipmentChangeLog equipmentChangeLog,
+                                MeterRegistry meterRegistry,
+                                @Value("${equipments.replica.enabled:false}") boolean enabled) {
+        this.equipmentRepository = equipmentRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        if (!enabled) {
+            return;
+        }
+
+        equipmentChangeLog.addListener(this::apply);
+        Gauge.builder("equipments.replica.rows", this, replica -> replica.generation == null ? 0 : replica.generation.columns.size)
+                .description("Equipments held in the columns of the read replica")
+                .register(meterRegistry);
+        Gauge.builder("equipments.replica.overlay", this, replica -> replica.generation == null ? 0 : replica.generation.overlay.byId.size())
+                .description("Equipments changed since the last refresh of the read replica")
+                .register(meterRegistry);
+        Gauge.builder("equipments.replica.memory", this, EquipmentReadReplica::memoryBytes)
+                .description("Approximate memory used by the columns of the read replica")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${equipments.replica.refresh-interval:600000}", initialDelayString = "${equipments.replica.refresh-interval:600000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads the columns from the repository. Changes recorded meanwhile are kept in the overlay of the new columns,
+     * as the read may or may not have seen them.
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pending = new Overlay();
+        }
+        Columns columns = transactionTemplate.execute(status -> {
+            try (Stream<Equipment> equipments = equipmentRepository.streamAll()) {
+                return load(equipments.peek(entityManager::detach).iterator());
+            }
+        });
+        install(columns);
+        log.info("Loaded {} equipments into the read replica in {} ms, about {} bytes", columns.size, (System.nanoTime() - start) / 1_000_000, memoryBytes());
+    }
+
+    public boolean isServing() {
+        return generation != null;
+    }
+
+    /**
+     * Returns the equipment with the given NP, or an empty optional when there is none.
+     */
+    public Optional<EquipmentDTO> findByNp(String np) {
+        Generation current = generation;
+        OverlayEntry changed = current.overlay.byNp.get(np);
+        if (changed != null) {
+            return Optional.ofNullable(changed.equipment).map(EquipmentReadReplica::copy);
+        }
+        int row = current.columns.rowOf(np);
+        return row < 0 ? Optional.empty() : Optional.of(current.columns.read(row));
+    }
+
+    /**
+     * Returns up to {@code limit} equipments of the given type with an id above {@code afterId}, in id order.
+     */
+    public List<EquipmentDTO> findByType(EquipmentType type, long afterId, int limit) {
+        Generation current = generation;
+        Columns columns = current.columns;
+        Overlay overlay = current.overlay;
+        int[] rows = columns.rowsByType[type.ordinal()];
+        List<EquipmentDTO> changed = overlay.byId.isEmpty() ? List.of() : overlay.ofType(type, afterId);
+
+        List<EquipmentDTO> equipments = new ArrayList<>(Math.min(limit, rows.length + changed.size()));
+        int position = columns.firstAfter(rows, afterId);
+        int changedPosition = 0;
+        while (equipments.size() < limit) {
+            while (position < rows.length && !overlay.byId.isEmpty() && overlay.byId.containsKey(columns.ids[rows[position]])) {
+                position++;
+            }
+            boolean hasRow = position < rows.length;
+            boolean hasChanged = changedPosition < changed.size();
+            if (!hasRow && !hasChanged) {
+                break;
+            }
+            if (hasChanged && (!hasRow || changed.get(changedPosition).getId() < columns.ids[rows[position]])) {
+                equipments.add(copy(changed.get(changedPosition++)));
+            } else {
+                equipments.add(columns.read(rows[position++]));
+            }
+        }
+        return equipments;
+    }
+
+    public long memoryBytes() {
+        Generation current = generation;
+        return current == null ? 0 : current.columns.memoryBytes();
+    }
+
+    /**
+     * Builds the columns from equipments given in ascending id order.
+     */
+    static Columns load(Iterator<Equipment> equipments) {
+        ColumnsBuilder builder = new ColumnsBuilder();
+        while (equipments.hasNext()) {
+            builder.add(equipments.next());
+        }
+        return builder.build();
+    }
+
+    synchronized void install(Columns columns) {
+        Overlay overlay = pending == null ? new Overlay() : pending;
+        for (EquipmentDTO irregular : columns.irregular) {
+            // a change recorded during the refresh is newer than what was read
+            overlay.putIfAbsent(irregular.getId(), irregular.getNp(), irregular);
+        }
+        generation = new Generation(columns, overlay);
+        pending = null;
+    }
+
+    private synchronized void apply(EquipmentChangeDTO change) {
+        EquipmentDTO equipment = change.getEquipment() == null ? null : copy(change.getEquipment());
+        if (generation != null) {
+            generation.overlay.put(change.getId(), change.getNp(), equipment);
+        }
+        if (pending != null) {
+            pending.put(change.getId(), change.getNp(), equipment);
+        }
+    }
+
+    private static EquipmentDTO copy(EquipmentDTO equipmentDTO) {
+        return equipmentDTO.toBuilder().build();
+    }
+
+    private static final class Generation {
+
+        private final Columns columns;
+        private final Overlay overlay;
+
+        private Generation(Columns columns, Overlay overlay) {
+            this.columns = columns;
+            this.overlay = overlay;
+        }
+    }
+
+    /**
+     * Immutable columns, one entry per row in NP order.
+     */
+    static final class Columns {
+
+        private final int size;
+        private final long[] ids;
+        private final int[] nps;
+        private final byte[] types;
+        private final int[] brands;
+        private final int[] models;
+        private final int[] maxes;
+        private final int[] quantities;
+        private final long[] versions;
+        private final long[] updatedAtNanos;
+        // rows of every type, in id order
+        private final int[][] rowsByType;
+        private final String[] dictionary;
+        private final List<EquipmentDTO> irregular;
+
+        private Columns(int size, long[] ids, int[] nps, byte[] types, int[] brands, int[] models, int[] maxes, int[] quantities,
+                        long[] versions, long[] updatedAtNanos, int[][] rowsByType, String[] dictionary, List<EquipmentDTO> irregular) {
+            this.size = size;
+            this.ids = ids;
+            this.nps = nps;
+            this.types = types;
+            this.brands = brands;
+            this.models = models;
+            this.maxes = maxes;
+            this.quantities = quantities;
+            this.versions = versions;
+            this.updatedAtNanos = updatedAtNanos;
+            this.rowsByType = rowsByType;
+            this.dictionary = dictionary;
+            this.irregular = irregular;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int rowOf(String np) {
+            int packedNp = EquipmentSnapshot.pack(np);
+            return packedNp < 0 ? -1 : Math.max(-1, Arrays.binarySearch(nps, 0, size, packedNp));
+        }
+
+        private int firstAfter(int[] rows, long afterId) {
+            int low = 0;
+            int high = rows.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ids[rows[middle]] <= afterId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private EquipmentDTO read(int row) {
+            long updatedAt = updatedAtNanos[row];
+            return EquipmentDTO.builder()
+                    .id(ids[row])
+                    .np(EquipmentSnapshot.unpack(nps[row]))
+                    .brand(dictionary[brands[row]])
+                    .model(dictionary[models[row]])
+                    .type(TYPES[types[row]])
+                    .max(maxes[row])
+                    .quantity(quantities[row])
+                    .version(versions[row])
+                    .updatedAt(updatedAt == NO_UPDATE ? null : Instant.ofEpochSecond(Math.floorDiv(updatedAt, NANOS_PER_SECOND), Math.floorMod(updatedAt, NANOS_PER_SECOND)))
+                    .build();
+        }
+
+        long memoryBytes() {
+            long dictionaryBytes = 0;
+            for (String value : dictionary) {
+                // string and array headers, Latin-1 contents
+                dictionaryBytes += 56 + value.length();
+            }
+            return (long) size * BYTES_PER_ROW + dictionaryBytes;
+        }
+    }
+
+    private static final class ColumnsBuilder {
+
+        private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final List<EquipmentDTO> irregular = new ArrayList<>();
+        private int size;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] nps = new int[INITIAL_CAPACITY];
+        private byte[] types = new byte[INITIAL_CAPACITY];
+        private int[] brands = new int[INITIAL_CAPACITY];
+        private int[] models = new int[INITIAL_CAPACITY];
+        private int[] maxes = new int[INITIAL_CAPACITY];
+        private int[] quantities = new int[INITIAL_CAPACITY];
+        private long[] versions = new long[INITIAL_CAPACITY];
+        private long[] updatedAtNanos = new long[INITIAL_CAPACITY];
+        private final int[] typeCounts = new int[TYPES.length];
+
+        private void add(Equipment equipment) {
+            int packedNp = EquipmentSnapshot.pack(equipment.getNp());
+            if (packedNp < 0) {
+                irregular.add(EquipmentDTO.builder()
+                        .id(equipment.getId())
+                        .np(equipment.getNp())
+                        .brand(equipment.getBrand())
+                        .model(equipment.getModel())
+                        .type(equipment.getType())
+                        .max(equipment.getMax())
+                        .quantity(equipment.getQuantity())
+                        .version(equipment.getVersion())
+                        .updatedAt(equipment.getUpdatedAt())
+                        .build());
+                return;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            Instant updatedAt = equipment.getUpdatedAt();
+            ids[size] = equipment.getId();
+            nps[size] = packedNp;
+            types[size] = (byte) equipment.getType().ordinal();
+            brands[size] = code(equipment.getBrand());
+            models[size] = code(equipment.getModel());
+            maxes[size] = equipment.getMax();
+            quantities[size] = equipment.getQuantity();
+            versions[size] = equipment.getVersion() == null ? 0L : equipment.getVersion();
+            updatedAtNanos[size] = updatedAt == null ? NO_UPDATE : updatedAt.getEpochSecond() * NANOS_PER_SECOND + updatedAt.getNano();
+            typeCounts[types[size]]++;
+            size++;
+        }
+
+        /**
+         * Sorts the rows by NP, the id order being kept in the per type row lists.
+         */
+        private Columns build() {
+            long[] npOrder = new long[size];
+            for (int row = 0; row < size; row++) {
+                npOrder[row] = (long) nps[row] << Integer.SIZE | row;
+            }
+            Arrays.sort(npOrder);
+            int[] positions = new int[size];
+            for (int position = 0; position < size; position++) {
+                positions[(int) npOrder[position]] = position;
+            }
+
+            int[][] rowsByType = new int[TYPES.length][];
+            for (int type = 0; type < TYPES.length; type++) {
+                rowsByType[type] = new int[typeCounts[type]];
+            }
+            int[] filled = new int[TYPES.length];
+            for (int row = 0; row < size; row++) {
+                rowsByType[types[row]][filled[types[row]]++] = positions[row];
+            }
+
+            irregular.sort(Comparator.comparing(EquipmentDTO::getId));
+            return new Columns(size,
+                    permute(ids, npOrder),
+                    permute(nps, npOrder),
+                    permute(types, npOrder),
+                    permute(brands, npOrder),
+                    permute(models, npOrder),
+                    permute(maxes, npOrder),
+                    permute(quantities, npOrder),
+                    permute(versions, npOrder),
+                    permute(updatedAtNanos, npOrder),
+                    rowsByType,
+                    dictionary.toArray(new String[0]),
+                    irregular);
+        }
+
+        private int code(String value) {
+            return dictionaryCodes.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            nps = Arrays.copyOf(nps, capacity);
+            types = Arrays.copyOf(types, capacity);
+            brands = Arrays.copyOf(brands, capacity);
+            models = Arrays.copyOf(models, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            updatedAtNanos = Arrays.copyOf(updatedAtNanos, capacity);
+        }
+
+        private long[] permute(long[] column, long[] npOrder) {
+            long[] sorted = new long[size];
+            for (int position = 0; position < size; position++) {
+                sorted[position] = column[(int) npOrder[position]];
+            }
+            return sorted;
+        }
+
+        private int[] permute(int[] column, long[] npOrder) {
+            int[] sorted = new int[size];
+            for (int position = 0; position < size; position++) {
+                sorted[position] = column[(int) npOrder[position]];
+            }
+            return sorted;
+        }
+
+        private byte[] permute(byte[] column, long[] npOrder) {
+            byte[] sorted = new byte[size];
+            for (int position = 0; position < size; position++) {
+                sorted[position] = column[(int) npOrder[position]];
+            }
+            return sorted;
+        }
+    }
+
+    private static final class OverlayEntry {
+
+        private final long id;
+        // null once deleted
+        private final EquipmentDTO equipment;
+
+        private OverlayEntry(long id, EquipmentDTO equipment) {
+            this.id = id;
+            this.equipment = equipment;
+        }
+    }
+
+    /**
+     * Latest state of the equipments changed since the columns were read, by id and by NP.
+     */
+    private static final class Overlay {
+
+        private final Map<Long, OverlayEntry> byId = new ConcurrentHashMap<>();
+        private final Map<String, OverlayEntry> byNp = new ConcurrentHashMap<>();
+
+        private void put(long id, String np, EquipmentDTO equipment) {
+            OverlayEntry entry = new OverlayEntry(id, equipment);
+            byId.put(id, entry);
+            byNp.put(np, entry);
+        }
+
+        private void putIfAbsent(long id, String np, EquipmentDTO equipment) {
+            if (!byId.containsKey(id) && !byNp.containsKey(np)) {
+                put(id, np, equipment);
+            }
+        }
+
+        private List<EquipmentDTO> ofType(EquipmentType type, long afterId) {
+            List<EquipmentDTO> equipments = new ArrayList<>();
+            for (OverlayEntry entry : byId.values()) {
+                if (entry.equipment != null && entry.id > afterId && entry.equipment.getType() == type) {
+                    equipments.add(entry.equipment);
+                }
+            }
+            equipments.sort(Comparator.comparing(EquipmentDTO::getId));
+            return equipments;
+        }
+    }
+}
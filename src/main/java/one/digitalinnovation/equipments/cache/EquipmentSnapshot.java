@@ -0,0 +1,301 @@
+package one.digitalinnovation.equipments.cache;
+
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only, memory-mapped copy of the catalogue. The file starts with a fixed header, followed by one fixed-width
+ * record per equipment in NP order and by a table of the distinct brands and models, which records refer to by index.
+ * The NP is stored as its nine digits packed in an int and the type as its ordinal, so a record takes
+ * {@value #RECORD_BYTES} bytes whatever the length of its texts. Lookups binary search the mapped records in place:
+ * only the string table is copied to the heap.
+ */
+public final class EquipmentSnapshot {
+
+    static final int MAGIC = 0x45515350;
+    // bump whenever the layout or the order of EquipmentType changes
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 49;
+
+    private static final int NP_DIGITS = 9;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NO_UPDATE = Long.MIN_VALUE;
+
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int UPDATED_SECONDS = 16;
+    private static final int UPDATED_NANOS = 24;
+    private static final int NP = 28;
+    private static final int MAX = 32;
+    private static final int QUANTITY = 36;
+    private static final int BRAND = 40;
+    private static final int MODEL = 44;
+    private static final int TYPE = 48;
+
+    private static final EquipmentType[] TYPES = EquipmentType.values();
+
+    private final ByteBuffer records;
+    private final int size;
+    private final String[] strings;
+
+    private EquipmentSnapshot(ByteBuffer records, int size, String[] strings) {
+        this.records = records;
+        this.size = size;
+        this.strings = strings;
+    }
+
+    /**
+     * Maps a snapshot written by {@link Writer}.
+     *
+     * @throws IOException when the file cannot be read or is not a snapshot of this format version
+     */
+    public static EquipmentSnapshot open(Path path) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not an equipment snapshot: " + path);
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.getInt(0) != MAGIC || file.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not an equipment snapshot of format version " + FORMAT_VERSION + ": " + path);
+        }
+        int size = file.getInt(8);
+        int stringCount = file.getInt(12);
+        long stringIndex = file.getLong(16);
+        if (size < 0 || stringCount < 0 || HEADER_BYTES + (long) size * RECORD_BYTES > stringIndex
+                || stringIndex + (long) stringCount * Integer.BYTES > file.capacity()) {
+            throw new IOException("Truncated equipment snapshot: " + path);
+        }
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int offset = file.getInt((int) stringIndex + i * Integer.BYTES);
+            byte[] bytes = new byte[file.getShort(offset) & 0xFFFF];
+            file.get(offset + Short.BYTES, bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        ByteBuffer records = file.slice(HEADER_BYTES, size * RECORD_BYTES);
+        return new EquipmentSnapshot(records, size, strings);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the equipment with the given NP, or null when the snapshot has none.
+     */
+    public EquipmentDTO findByNp(String np) {
+        int packedNp = pack(np);
+        if (packedNp < 0) {
+            return null;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleNp = records.getInt(middle * RECORD_BYTES + NP);
+            if (middleNp < packedNp) {
+                low = middle + 1;
+            } else if (middleNp > packedNp) {
+                high = middle - 1;
+            } else {
+                return read(middle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands every equipment to the consumer, in NP order.
+     */
+    public void forEach(Consumer<EquipmentDTO> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(read(i));
+        }
+    }
+
+    public List<EquipmentDTO> listAll() {
+        List<EquipmentDTO> equipments = new ArrayList<>(size);
+        forEach(equipments::add);
+        return equipments;
+    }
+
+    private EquipmentDTO read(int index) {
+        int offset = index * RECORD_BYTES;
+        long updatedSeconds = records.getLong(offset + UPDATED_SECONDS);
+        return EquipmentDTO.builder()
+                .id(records.getLong(offset + ID))
+                .np(unpack(records.getInt(offset + NP)))
+                .brand(strings[records.getInt(offset + BRAND)])
+                .model(strings[records.getInt(offset + MODEL)])
+                .type(TYPES[records.get(offset + TYPE)])
+                .max(records.getInt(offset + MAX))
+                .quantity(records.getInt(offset + QUANTITY))
+                .version(records.getLong(offset + VERSION))
+                .updatedAt(updatedSeconds == NO_UPDATE ? null : Instant.ofEpochSecond(updatedSeconds, records.getInt(offset + UPDATED_NANOS)))
+                .build();
+    }
+
+    /**
+     * Packs a nine digit NP into an int, or returns -1 when the NP has another shape.
+     */
+    static int pack(String np) {
+        if (np == null || np.length() != NP_DIGITS) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < NP_DIGITS; i++) {
+            int digit = np.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            packed = packed * 10 + digit;
+        }
+        return packed;
+    }
+
+    static String unpack(int packedNp) {
+        char[] digits = new char[NP_DIGITS];
+        for (int i = NP_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + packedNp % 10);
+            packedNp /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Writes a snapshot to a temporary file next to the target, which replaces the target once complete,
+     * so a reader never maps a partial snapshot. Equipments must be added in ascending NP order.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int size;
+        private int lastNp = -1;
+        private boolean committed;
+
+        public Writer(Path target) throws IOException {
+            this.target = target;
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+            channel.position(HEADER_BYTES);
+        }
+
+        /**
+         * @throws IllegalArgumentException when the NP is not nine digits or comes before the previous one
+         */
+        public void add(EquipmentDTO equipmentDTO) throws IOException {
+            int packedNp = pack(equipmentDTO.getNp());
+            if (packedNp < 0) {
+                throw new IllegalArgumentException("NP " + equipmentDTO.getNp() + " cannot be packed into a snapshot");
+            }
+            if (packedNp <= lastNp) {
+                throw new IllegalArgumentException("NP " + equipmentDTO.getNp() + " is out of order");
+            }
+            lastNp = packedNp;
+
+            ensureRemaining(RECORD_BYTES);
+            Instant updatedAt = equipmentDTO.getUpdatedAt();
+            buffer.putLong(equipmentDTO.getId())
+                    .putLong(equipmentDTO.getVersion() == null ? 0L : equipmentDTO.getVersion())
+                    .putLong(updatedAt == null ? NO_UPDATE : updatedAt.getEpochSecond())
+                    .putInt(updatedAt == null ? 0 : updatedAt.getNano())
+                    .putInt(packedNp)
+                    .putInt(equipmentDTO.getMax())
+                    .putInt(equipmentDTO.getQuantity())
+                    .putInt(stringIndex(equipmentDTO.getBrand()))
+                    .putInt(stringIndex(equipmentDTO.getModel()))
+                    .put((byte) equipmentDTO.getType().ordinal());
+            size++;
+        }
+
+        /**
+         * Writes the string table and the header, then moves the snapshot in place of the target.
+         */
+        public void commit() throws IOException {
+            int[] offsets = new int[strings.size()];
+            long position = HEADER_BYTES + (long) size * RECORD_BYTES;
+            for (int i = 0; i < strings.size(); i++) {
+                byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                offsets[i] = (int) position;
+                ensureRemaining(Short.BYTES + bytes.length);
+                buffer.putShort((short) bytes.length).put(bytes);
+                position += Short.BYTES + bytes.length;
+            }
+            for (int offset : offsets) {
+                ensureRemaining(Integer.BYTES);
+                buffer.putInt(offset);
+            }
+            drain();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(size)
+                    .putInt(strings.size())
+                    .putLong(position)
+                    .putLong(System.currentTimeMillis());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private int stringIndex(String value) {
+            return stringIndexes.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.dto.EquipmentCountDTO;
+import one.digitalinnovation.equipments.dto.EquipmentStatsDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Equipment counts by brand and type, loaded with one {@code group by} query before the application starts serving
+ * and then kept up to date by the create and delete operations, so reading the statistics scans no table.
+ * Every {@code equipments.stats.verify-interval} the counts are checked against a recount: a difference is logged,
+ * counted in {@code equipments.stats.drift} and replaced by the recount.
+ * <p>
+ * Every create and delete is wrapped in {@link #beginWrite()} and {@link #endWrite()}, from before its statement is
+ * sent to after the counts are updated, so a recount never mistakes a committed write not yet counted for drift.
+ */
+@Slf4j
+@Component
+public class EquipmentStatsCounter implements SmartInitializingSingleton {
+
+    private static final EquipmentType[] TYPES = EquipmentType.values();
+
+    private final EquipmentRepository equipmentRepository;
+    private final Counter drift;
+    // counts by type ordinal of every brand, guarded by this
+    private final Map<String, long[]> countsByBrand = new HashMap<>();
+    private final AtomicLong writesBegun = new AtomicLong();
+    private final AtomicLong writesEnded = new AtomicLong();
+
+    public EquipmentStatsCounter(EquipmentRepository equipmentRepository, MeterRegistry meterRegistry) {
+        this.equipmentRepository = equipmentRepository;
+        this.drift = Counter.builder("equipments.stats.drift")
+                .description("Recounts that did not match the incrementally maintained statistics")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * Announces a create or delete about to be sent to the database. It must be followed by {@link #endWrite()}
+     * once the counts are updated, or once the write failed.
+     */
+    public void beginWrite() {
+        writesBegun.incrementAndGet();
+    }
+
+    public void endWrite() {
+        writesEnded.incrementAndGet();
+    }
+
+    public synchronized void add(String brand, EquipmentType type) {
+        countsByBrand.computeIfAbsent(brand, key -> new long[TYPES.length])[type.ordinal()]++;
+    }
+
+    public synchronized void remove(String brand, EquipmentType type) {
+        long[] counts = countsByBrand.get(brand);
+        if (counts == null) {
+            return;
+        }
+        counts[type.ordinal()]--;
+        for (long count : counts) {
+            if (count != 0) {
+                return;
+            }
+        }
+        countsByBrand.remove(brand);
+    }
+
+    public synchronized EquipmentStatsDTO stats() {
+        long total = 0;
+        Map<EquipmentType, Long> byType = new EnumMap<>(EquipmentType.class);
+        for (EquipmentType type : TYPES) {
+            byType.put(type, 0L);
+        }
+        Map<String, Long> byBrand = new TreeMap<>();
+        Map<String, Map<EquipmentType, Long>> byBrandAndType = new TreeMap<>();
+        for (Map.Entry<String, long[]> brand : countsByBrand.entrySet()) {
+            long brandTotal = 0;
+            Map<EquipmentType, Long> brandByType = new EnumMap<>(EquipmentType.class);
+            for (EquipmentType type : TYPES) {
+                long count = brand.getValue()[type.ordinal()];
+                if (count != 0) {
+                    brandByType.put(type, count);
+                    byType.merge(type, count, Long::sum);
+                    brandTotal += count;
+                }
+            }
+            byBrand.put(brand.getKey(), brandTotal);
+            byBrandAndType.put(brand.getKey(), brandByType);
+            total += brandTotal;
+        }
+        return new EquipmentStatsDTO(total, byType, byBrand, byBrandAndType);
+    }
+
+    /**
+     * Replaces the counts with a recount, for when equipments were written without going through the service.
+     */
+    public void reload() {
+        Map<String, long[]> recount = recount();
+        synchronized (this) {
+            countsByBrand.clear();
+            countsByBrand.putAll(recount);
+        }
+    }
+
+    /**
+     * Compares the counts with a recount and keeps the recount when they differ. The check is skipped when a write
+     * was under way at any point of the recount, since the recount may include it before the counts do.
+     *
+     * @return false when the counts had drifted from the recount
+     */
+    @Scheduled(fixedDelayString = "${equipments.stats.verify-interval:600000}", initialDelayString = "${equipments.stats.verify-interval:600000}")
+    public boolean verify() {
+        long begun = writesBegun.get();
+        if (writesEnded.get() != begun) {
+            return true;
+        }
+        Map<String, long[]> recount = recount();
+        synchronized (this) {
+            if (writesBegun.get() != begun || equal(countsByBrand, recount)) {
+                return true;
+            }
+            log.warn("Equipment statistics drifted from the database, {} counted but {} recounted",
+                    countsByBrand.values().stream().flatMapToLong(Arrays::stream).sum(),
+                    recount.values().stream().flatMapToLong(Arrays::stream).sum());
+            drift.increment();
+            countsByBrand.clear();
+            countsByBrand.putAll(recount);
+            return false;
+        }
+    }
+
+    private Map<String, long[]> recount() {
+        List<EquipmentCountDTO> counts = equipmentRepository.countByBrandAndType();
+        Map<String, long[]> recount = new HashMap<>();
+        for (EquipmentCountDTO count : counts) {
+            recount.computeIfAbsent(count.getBrand(), key -> new long[TYPES.length])[count.getType().ordinal()] = count.getCount();
+        }
+        return recount;
+    }
+
+    private static boolean equal(Map<String, long[]> first, Map<String, long[]> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> brand : first.entrySet()) {
+            if (!Arrays.equals(brand.getValue(), second.get(brand.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
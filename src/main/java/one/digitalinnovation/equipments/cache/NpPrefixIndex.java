@@ -0,0 +1,254 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index of every registered NP, answering autocomplete queries without touching the database.
+ * A well-formed NP is a type initial code followed by four digits, so it is kept as one bit of a fixed bitmap with
+ * 10,000 slots per type code: under 9 KB for all the possible NPs, whatever the number of registered ones.
+ * Bits are laid out in NP order, so a prefix maps to a contiguous slot range. Any other NP goes to a sorted
+ * overflow set. The index is loaded before the application starts serving and is then kept up to date by
+ * the create and delete operations.
+ */
+@Component
+public class NpPrefixIndex implements SmartInitializingSingleton {
+
+    private static final int SEQUENCE_DIGITS = 4;
+    private static final int SEQUENCES_PER_CODE = 10_000;
+    // approximate footprint of a skip list node holding a short Latin-1 string
+    private static final int OVERFLOW_ENTRY_BYTES = 96;
+
+    private final EquipmentRepository equipmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String[] initialCodes;
+    private final AtomicLongArray slots;
+    private final AtomicInteger slotEntries = new AtomicInteger();
+    private final ConcurrentSkipListSet<String> overflow = new ConcurrentSkipListSet<>();
+
+    public NpPrefixIndex(EquipmentRepository equipmentRepository, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.equipmentRepository = equipmentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.initialCodes = Arrays.stream(EquipmentType.values())
+                .map(EquipmentType::getInitialCode)
+                .distinct()
+                .sorted()
+                .toArray(String[]::new);
+        this.slots = new AtomicLongArray((initialCodes.length * SEQUENCES_PER_CODE + Long.SIZE - 1) / Long.SIZE);
+
+        Gauge.builder("equipments.np.index.entries", this, NpPrefixIndex::size)
+                .description("NPs held by the prefix index")
+                .register(meterRegistry);
+        Gauge.builder("equipments.np.index.memory", this, NpPrefixIndex::memoryBytes)
+                .description("Approximate memory used by the prefix index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("equipments.np.index.memory.per.entry", this, index -> index.size() == 0 ? 0 : (double) index.memoryBytes() / index.size())
+                .description("Approximate memory used by the prefix index per registered NP")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.execute(status -> {
+            try (Stream<String> nps = equipmentRepository.streamAllNps()) {
+                nps.forEach(this::add);
+            }
+            return null;
+        });
+    }
+
+    public void add(String np) {
+        int slot = slotOf(np);
+        if (slot < 0) {
+            overflow.add(np);
+        } else if (setSlot(slot)) {
+            slotEntries.incrementAndGet();
+        }
+    }
+
+    public void remove(String np) {
+        int slot = slotOf(np);
+        if (slot < 0) {
+            overflow.remove(np);
+        } else if (clearSlot(slot)) {
+            slotEntries.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} registered NPs starting with the prefix, in ascending order.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> fromSlots = new ArrayList<>(Math.min(limit, 16));
+        for (int code = 0; code < initialCodes.length && fromSlots.size() < limit; code++) {
+            collectSlots(code, prefix, limit, fromSlots);
+        }
+
+        List<String> fromOverflow = new ArrayList<>();
+        Iterator<String> candidates = overflow.tailSet(prefix).iterator();
+        while (fromOverflow.size() < limit && candidates.hasNext()) {
+            String candidate = candidates.next();
+            if (!candidate.startsWith(prefix)) {
+                break;
+            }
+            fromOverflow.add(candidate);
+        }
+        return merge(fromSlots, fromOverflow, limit);
+    }
+
+    public int size() {
+        return slotEntries.get() + overflow.size();
+    }
+
+    public long memoryBytes() {
+        return (long) slots.length() * Long.BYTES + (long) overflow.size() * OVERFLOW_ENTRY_BYTES;
+    }
+
+    private void collectSlots(int code, String prefix, int limit, List<String> suggestions) {
+        String initialCode = initialCodes[code];
+        int from;
+        int to;
+        if (prefix.length() <= initialCode.length()) {
+            if (!initialCode.startsWith(prefix)) {
+                return;
+            }
+            from = 0;
+            to = SEQUENCES_PER_CODE;
+        } else {
+            int sequenceDigits = prefix.length() - initialCode.length();
+            if (!prefix.startsWith(initialCode) || sequenceDigits > SEQUENCE_DIGITS) {
+                return;
+            }
+            int sequencePrefix = parseDigits(prefix, initialCode.length(), prefix.length());
+            if (sequencePrefix < 0) {
+                return;
+            }
+            int scale = pow10(SEQUENCE_DIGITS - sequenceDigits);
+            from = sequencePrefix * scale;
+            to = from + scale;
+        }
+
+        int base = code * SEQUENCES_PER_CODE;
+        for (int slot = nextSetSlot(base + from, base + to); slot >= 0 && suggestions.size() < limit; slot = nextSetSlot(slot + 1, base + to)) {
+            suggestions.add(npOf(initialCode, slot - base));
+        }
+    }
+
+    private int slotOf(String np) {
+        for (int code = 0; code < initialCodes.length; code++) {
+            String initialCode = initialCodes[code];
+            if (np.length() == initialCode.length() + SEQUENCE_DIGITS && np.startsWith(initialCode)) {
+                int sequence = parseDigits(np, initialCode.length(), np.length());
+                return sequence < 0 ? -1 : code * SEQUENCES_PER_CODE + sequence;
+            }
+        }
+        return -1;
+    }
+
+    private boolean setSlot(int slot) {
+        int word = slot / Long.SIZE;
+        long mask = 1L << slot;
+        long current;
+        do {
+            current = slots.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!slots.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    private boolean clearSlot(int slot) {
+        int word = slot / Long.SIZE;
+        long mask = 1L << slot;
+        long current;
+        do {
+            current = slots.get(word);
+            if ((current & mask) == 0) {
+                return false;
+            }
+        } while (!slots.compareAndSet(word, current, current & ~mask));
+        return true;
+    }
+
+    private int nextSetSlot(int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int word = from / Long.SIZE;
+        long bits = slots.get(word) & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int slot = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                return slot < to ? slot : -1;
+            }
+            if (++word * Long.SIZE >= to) {
+                return -1;
+            }
+            bits = slots.get(word);
+        }
+    }
+
+    private static String npOf(String initialCode, int sequence) {
+        char[] np = new char[initialCode.length() + SEQUENCE_DIGITS];
+        initialCode.getChars(0, initialCode.length(), np, 0);
+        for (int i = np.length - 1; i >= initialCode.length(); i--) {
+            np[i] = (char) ('0' + sequence % 10);
+            sequence /= 10;
+        }
+        return new String(np);
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static int pow10(int exponent) {
+        int value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static List<String> merge(List<String> first, List<String> second, int limit) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        List<String> merged = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j == second.size() || (i < first.size() && first.get(i).compareTo(second.get(j)) <= 0)) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,96 @@
+package one.digitalinnovation.equipments.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers 503 with Retry-After when more API requests are in flight than the current limit, instead of letting them
+ * queue for a pooled connection until they time out. The limit adapts to the latency (additive increase,
+ * multiplicative decrease): it grows by one whenever a request that used at least half of it finishes within
+ * {@code targetLatency}, and shrinks by {@value #BACKOFF_PERCENT}% at most once per {@code targetLatency} while
+ * requests take longer. Asynchronous responses, such as exports and event streams, count until their first dispatch
+ * returns, so they neither hold a slot nor skew the latency for their whole duration.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+    private static final int BACKOFF_PERCENT = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+    private final Counter rejected;
+
+    public LoadSheddingFilter(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit, Duration targetLatency) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("The concurrency limit needs 1 <= min-limit <= max-limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(initialLimit, maxLimit)));
+        this.rejected = Counter.builder(RateLimitFilter.REJECTED_METRIC)
+                .description("API requests rejected before reaching the controller")
+                .tag("reason", "overloaded")
+                .register(meterRegistry);
+        Gauge.builder("equipments.http.concurrency.limit", limit, AtomicInteger::get)
+                .description("API requests allowed in flight at once")
+                .register(meterRegistry);
+        Gauge.builder("equipments.http.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("API requests in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        int concurrency = inFlight.incrementAndGet();
+        if (concurrency > limit.get()) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in flight");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+            if (!request.isAsyncStarted()) {
+                sample(concurrency, start, System.nanoTime());
+            }
+        }
+    }
+
+    int limit() {
+        return limit.get();
+    }
+
+    private void sample(int concurrency, long start, long end) {
+        if (end - start > targetLatencyNanos) {
+            long decreased = lastDecrease.get();
+            // one decrease per window: the requests in flight when latency went up would otherwise all cut the limit
+            if (end - decreased >= targetLatencyNanos && lastDecrease.compareAndSet(decreased, end)) {
+                limit.updateAndGet(current -> Math.max(minLimit, current * (100 - BACKOFF_PERCENT) / 100));
+            }
+        } else if (concurrency * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+}
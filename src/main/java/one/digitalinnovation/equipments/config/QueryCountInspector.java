@@ -0,0 +1,32 @@
+package one.digitalinnovation.equipments.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so a request or a test can tell
+ * how many round trips it cost. Statements sent through {@code JdbcTemplate} are not counted.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    public static int count() {
+        return STATEMENTS.get()[0];
+    }
+
+    /**
+     * Starts counting from zero again, returning the statements counted until now.
+     */
+    public static int reset() {
+        int[] statements = STATEMENTS.get();
+        int count = statements[0];
+        statements[0] = 0;
+        return count;
+    }
+}
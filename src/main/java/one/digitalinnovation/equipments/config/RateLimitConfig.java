@@ -0,0 +1,50 @@
+package one.digitalinnovation.equipments.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Rejects API requests the application cannot serve in time before they reach the controllers: first the clients
+ * going past their rate, then whatever goes past the adaptive concurrency limit. Both run ahead of the other
+ * API filters, so a rejected request costs no query and no pooled connection.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    private static final int RATE_LIMIT_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    @Bean
+    @ConditionalOnProperty(name = "equipments.rate-limit.enabled", havingValue = "true")
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(MeterRegistry meterRegistry,
+                                                                   @Value("${equipments.rate-limit.requests-per-second:20}") double requestsPerSecond,
+                                                                   @Value("${equipments.rate-limit.burst:40}") int burst,
+                                                                   @Value("${equipments.rate-limit.client-header:}") String clientHeader,
+                                                                   @Value("${equipments.rate-limit.maximum-clients:100000}") long maximumClients) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(meterRegistry, requestsPerSecond, burst, clientHeader, maximumClients));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(RATE_LIMIT_ORDER);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "equipments.load-shedding.enabled", havingValue = "true")
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(MeterRegistry meterRegistry,
+                                                                         @Value("${equipments.load-shedding.initial-limit:20}") int initialLimit,
+                                                                         @Value("${equipments.load-shedding.min-limit:4}") int minLimit,
+                                                                         @Value("${equipments.load-shedding.max-limit:200}") int maxLimit,
+                                                                         @Value("${equipments.load-shedding.target-latency:500ms}") Duration targetLatency) {
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(
+                new LoadSheddingFilter(meterRegistry, initialLimit, minLimit, maxLimit, targetLatency));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(RATE_LIMIT_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,84 @@
+package one.digitalinnovation.equipments.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every client a {@link TokenBucket} per endpoint and answers 429 with Retry-After once it is empty,
+ * before the request reaches the controller or the connection pool. Clients are told apart by the last address of
+ * {@code clientHeader} when it is set and present, by their address otherwise: the last address is the one the
+ * nearest proxy appended, so a client cannot pick its own bucket by sending the header itself. Endpoints are the method and
+ * the path with every segment holding a digit, such as an id or an NP, folded into one.
+ * Idle buckets are dropped once they would have filled up again, so forgetting them changes nothing.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String REJECTED_METRIC = "equipments.http.rejected";
+    private static final String PATH_VARIABLE = "{}";
+
+    private final double requestsPerSecond;
+    private final int burst;
+    private final String clientHeader;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rejected;
+
+    public RateLimitFilter(MeterRegistry meterRegistry, double requestsPerSecond, int burst, String clientHeader, long maximumBuckets) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.clientHeader = clientHeader == null || clientHeader.isBlank() ? null : clientHeader;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(new TokenBucket(requestsPerSecond, burst).refillNanos(), TimeUnit.NANOSECONDS)
+                .build();
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("API requests rejected before reaching the controller")
+                .tag("reason", "rate-limited")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        TokenBucket bucket = buckets.get(client(request) + ' ' + endpoint(request), key -> new TokenBucket(requestsPerSecond, burst));
+        long wait = bucket.tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1))));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests to this endpoint");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String client(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                // X-Forwarded-For lists what the client sent first and the address the proxy saw last
+                return client.substring(client.lastIndexOf(',') + 1).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    static String endpoint(HttpServletRequest request) {
+        StringBuilder endpoint = new StringBuilder(request.getMethod()).append(' ');
+        for (String segment : request.getRequestURI().split("/")) {
+            if (!segment.isEmpty()) {
+                endpoint.append('/').append(segment.chars().anyMatch(Character::isDigit) ? PATH_VARIABLE : segment);
+            }
+        }
+        return endpoint.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package one.digitalinnovation.equipments.config;
+
+import one.digitalinnovation.equipments.service.EquipmentSnapshotService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SnapshotConfig {
+
+    @Bean
+    public FilterRegistrationBean<SnapshotRestoreFilter> snapshotRestoreFilter(EquipmentSnapshotService equipmentSnapshotService) {
+        FilterRegistrationBean<SnapshotRestoreFilter> registration = new FilterRegistrationBean<>(new SnapshotRestoreFilter(equipmentSnapshotService));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,69 @@
+package one.digitalinnovation.equipments.config;
+
+import one.digitalinnovation.equipments.service.EquipmentSnapshotService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Answers 503 while the database is being restored from the equipment snapshot, telling the client when to retry,
+ * to every request but the reads the snapshot serves: an equipment by NP, the suggestions and the unpaged list.
+ * Everything else would read or write the half-filled database.
+ */
+public class SnapshotRestoreFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "5";
+    private static final String EQUIPMENTS_PATH = "/api/v1/equipments";
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    // the other single segments under the equipments path are NPs
+    private static final Set<String> DATABASE_READS = Set.of("export", "changes", "stream", "stats");
+
+    private final EquipmentSnapshotService equipmentSnapshotService;
+
+    public SnapshotRestoreFilter(EquipmentSnapshotService equipmentSnapshotService) {
+        this.equipmentSnapshotService = equipmentSnapshotService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (equipmentSnapshotService.isRestoring() && !isServedFromSnapshot(request)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Equipments are being restored from a snapshot");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static boolean isServedFromSnapshot(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.OPTIONS.matches(method)) {
+            return true;
+        }
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(EQUIPMENTS_PATH)) {
+            // pages, searches and the streamed list read the database
+            return request.getQueryString() == null && !isStreamed(request.getHeader(HttpHeaders.ACCEPT));
+        }
+        if (!path.startsWith(EQUIPMENTS_PATH + '/')) {
+            return false;
+        }
+        String segment = path.substring(EQUIPMENTS_PATH.length() + 1);
+        return !segment.isEmpty() && segment.indexOf('/') < 0 && !DATABASE_READS.contains(segment);
+    }
+
+    private static boolean isStreamed(String accept) {
+        return accept != null && (accept.contains(APPLICATION_NDJSON_VALUE) || accept.contains(MediaType.APPLICATION_STREAM_JSON_VALUE));
+    }
+}
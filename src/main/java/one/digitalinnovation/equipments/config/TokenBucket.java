@@ -0,0 +1,52 @@
+package one.digitalinnovation.equipments.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket holding up to {@code burst} tokens, refilled at {@code ratePerSecond}. Its whole state is the
+ * {@link System#nanoTime()} at which it will be full again, moved forward by one token interval per request
+ * with a single compare-and-set, so concurrent requests never lock.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    // starts in the past: a new bucket is full
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a burst of at least one token");
+        }
+        this.nanosPerToken = Math.max(1L, (long) (NANOS_PER_SECOND / ratePerSecond));
+        this.burstNanos = nanosPerToken * burst;
+    }
+
+    /**
+     * Takes a token if one is left at {@code now}.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next one
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds an empty bucket takes to fill up again, after which an idle bucket can be dropped and recreated.
+     */
+    long refillNanos() {
+        return burstNanos;
+    }
+}
@@ -0,0 +1,49 @@
+package one.digitalinnovation.equipments.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every request, and the service and JDBC calls made from it, on its own virtual thread when
+ * {@code equipments.execution.mode=virtual}. Blocked requests then wait on the Hikari pool instead of holding
+ * a Tomcat worker, so the request concurrency is bounded by {@code server.tomcat.max-connections} and the
+ * database concurrency by {@code spring.datasource.hikari.maximum-pool-size}.
+ * The default {@code platform} mode keeps the Tomcat worker pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "equipments.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            // looked up reflectively so the code still compiles for the Java 14 target
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("equipments.execution.mode=virtual requires a Java 21 or newer runtime, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor());
+    }
+
+    /**
+     * The executor bean replaces Boot's applicationTaskExecutor, so the streaming responses need it explicitly.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor()));
+    }
+}
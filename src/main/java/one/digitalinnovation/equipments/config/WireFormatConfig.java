@@ -0,0 +1,45 @@
+package one.digitalinnovation.equipments.config;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Compact binary encodings negotiated through the Accept and Content-Type headers:
+ * {@code application/cbor} and {@code application/x-jackson-smile}.
+ * They share the JSON mapper settings, except that enums are written as their ordinal,
+ * so new {@link one.digitalinnovation.equipments.enums.EquipmentType} values must only ever be appended.
+ * API responses carry {@code Vary: Accept}, and entity tags name the encoding, so caches keep the encodings apart.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public FilterRegistrationBean<VaryAcceptFilter> varyAcceptFilter() {
+        FilterRegistrationBean<VaryAcceptFilter> registration = new FilterRegistrationBean<>(new VaryAcceptFilter());
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder
+                .factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder
+                .factory(new SmileFactory())
+                .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .build());
+    }
+}
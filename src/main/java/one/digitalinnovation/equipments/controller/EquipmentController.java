@@ -1,26 +1,74 @@
 package one.digitalinnovation.equipments.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AllArgsConstructor;
+import one.digitalinnovation.equipments.dto.EquipmentChangesDTO;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteBatchDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import one.digitalinnovation.equipments.dto.EquipmentStatsDTO;
 import one.digitalinnovation.equipments.dto.QuantityDTO;
+import one.digitalinnovation.equipments.enums.EquipmentExportFormat;
 import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
 import one.digitalinnovation.equipments.exception.EquipmentCodeException;
 import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
 import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
+import one.digitalinnovation.equipments.service.EquipmentEventBroadcaster;
+import one.digitalinnovation.equipments.service.EquipmentExportService;
+import one.digitalinnovation.equipments.service.EquipmentImportService;
 import one.digitalinnovation.equipments.service.EquipmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/equipments")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class EquipmentController implements EquipmentControllerDocs {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final String APPLICATION_GZIP_VALUE = "application/gzip";
+    private static final String GZIP_ENCODING = "gzip";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final List<MediaType> BINARY_ENCODINGS = List.of(MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"));
+
     private final EquipmentService equipmentService;
+    private final EquipmentImportService equipmentImportService;
+    private final EquipmentExportService equipmentExportService;
+    private final EquipmentEventBroadcaster equipmentEventBroadcaster;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -28,14 +76,113 @@ public class EquipmentController implements EquipmentControllerDocs {
         return equipmentService.createEquipment(equipmentDTO);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public EquipmentImportResultDTO createEquipments(InputStream equipments) throws IOException {
+        try (MappingIterator<EquipmentDTO> equipmentDTOs = objectMapper.readerFor(EquipmentDTO.class).readValues(equipments)) {
+            return equipmentImportService.importEquipments(equipmentDTOs);
+        } catch (RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public EquipmentImportResultDTO importEquipments(InputStream equipments,
+                                                     @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) throws IOException {
+        InputStream body = GZIP_ENCODING.equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(equipments, GZIP_BUFFER_SIZE) : equipments;
+        return equipmentImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEquipments(@RequestParam(defaultValue = "CSV") EquipmentExportFormat format,
+                                                                  @RequestParam(defaultValue = "false") boolean gzip) {
+        String fileName = "equipments." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? APPLICATION_GZIP_VALUE : format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment").filename(fileName).build().toString())
+                .body(outputStream -> {
+                    if (!gzip) {
+                        equipmentExportService.export(format, outputStream);
+                        return;
+                    }
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+                    equipmentExportService.export(format, gzipStream);
+                    gzipStream.finish();
+                });
+    }
+
+    @GetMapping("/changes")
+    public EquipmentChangesDTO changes(@RequestParam(required = false) String since, @RequestParam(required = false) Integer size) {
+        return equipmentService.changesSince(since, size);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        return equipmentEventBroadcaster.subscribe();
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        return equipmentService.suggest(prefix, limit);
+    }
+
+    @GetMapping("/stats")
+    public EquipmentStatsDTO stats() {
+        return equipmentService.stats();
+    }
+
     @GetMapping("/{np}")
-    public EquipmentDTO findByNp(@PathVariable String np) throws EquipmentNotFoundException {
-        return equipmentService.findByNp(np);
+    public EquipmentDTO findByNp(@PathVariable String np, WebRequest request) throws EquipmentNotFoundException {
+        EquipmentDTO equipmentDTO = equipmentService.findByNp(np);
+        String eTag = eTag(equipmentDTO.getId() + "-" + equipmentDTO.getVersion(), request);
+        boolean notModified = equipmentDTO.getUpdatedAt() == null
+                ? request.checkNotModified(eTag)
+                : request.checkNotModified(eTag, equipmentDTO.getUpdatedAt().toEpochMilli());
+        return notModified ? null : equipmentDTO;
     }
 
     @GetMapping
-    public List<EquipmentDTO> listEquipments() {
-        return equipmentService.listAll();
+    public ResponseEntity<List<EquipmentDTO>> listEquipments(EquipmentFilterDTO filter,
+                                                             @RequestParam(required = false) Long cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             WebRequest request) {
+        // answered from the catalogue revision alone, before any query
+        if (request.checkNotModified(eTag(equipmentService.catalogueRevision(), request))) {
+            return null;
+        }
+        if (filter.isEmpty() && cursor == null && size == null) {
+            return ResponseEntity.ok(equipmentService.listAll());
+        }
+        EquipmentPageDTO page = filter.isEmpty()
+                ? equipmentService.listPage(cursor, size)
+                : equipmentService.searchPage(filter, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext().toString());
+        }
+        return response.body(page.getContent());
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEquipments() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(this::writeNdjson);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<EquipmentDTO> publishEquipments() {
+        return equipmentService.publishAll();
+    }
+
+    @DeleteMapping("/np/{np}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteByNp(@PathVariable String np) throws EquipmentNotFoundException {
+        equipmentService.deleteByNp(np);
+    }
+
+    @PostMapping("/delete-batch")
+    public EquipmentDeleteResultDTO deleteEquipments(@RequestBody EquipmentDeleteBatchDTO batch) {
+        return equipmentService.deleteAll(batch);
     }
 
     @DeleteMapping("/{id}")
@@ -46,6 +193,52 @@ public class EquipmentController implements EquipmentControllerDocs {
 
     @PatchMapping("/{id}/increment")
     public EquipmentDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws EquipmentNotFoundException, EquipmentsExceededException {
-        return null;//////////////////////equipmentService.increment(id, quantityDTO.getQuantity());
+        return equipmentService.increment(id, quantityDTO.getQuantity());
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public EquipmentDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws EquipmentNotFoundException, EquipmentsInsufficientException {
+        return equipmentService.decrement(id, quantityDTO.getQuantity());
+    }
+
+    // JSON keeps the bare tag; CBOR and Smile bodies differ from it, so their tags name the encoding
+    private static String eTag(String value, WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null) {
+            try {
+                List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+                MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+                for (MediaType acceptedMediaType : acceptedMediaTypes) {
+                    // JSON is the first converter, so it also answers wildcards
+                    if (acceptedMediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                        break;
+                    }
+                    for (MediaType binaryEncoding : BINARY_ENCODINGS) {
+                        if (acceptedMediaType.isCompatibleWith(binaryEncoding)) {
+                            return "\"" + value + "-" + binaryEncoding.getSubtype() + "\"";
+                        }
+                    }
+                }
+            } catch (InvalidMediaTypeException e) {
+                // answered as JSON
+            }
+        }
+        return "\"" + value + "\"";
+    }
+
+    private void writeNdjson(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(EquipmentDTO.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            equipmentService.streamAll(equipmentDTO -> {
+                try {
+                    writer.writeValue(generator, equipmentDTO);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+        }
     }
 }
@@ -4,12 +4,29 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import one.digitalinnovation.equipments.dto.EquipmentChangesDTO;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteBatchDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentStatsDTO;
+import one.digitalinnovation.equipments.dto.QuantityDTO;
+import one.digitalinnovation.equipments.enums.EquipmentExportFormat;
 import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
 import one.digitalinnovation.equipments.exception.EquipmentCodeException;
 import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Api("Manages beer stock")
@@ -22,18 +39,91 @@ public interface EquipmentControllerDocs {
     })
     EquipmentDTO createEquipment(EquipmentDTO equipmentDTO) throws EquipmentAlreadyRegisteredException, EquipmentCodeException;
 
+    @ApiOperation(value = "Equipments bulk creation operation, from a JSON array or newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Report with the result of every row"),
+            @ApiResponse(code = 400, message = "Malformed request body.")
+    })
+    EquipmentImportResultDTO createEquipments(InputStream equipments) throws IOException;
+
+    @ApiOperation(value = "Equipments bulk creation operation from a CSV file in the export layout, optionally sent with Content-Encoding gzip")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Report with the number of created Equipments and the rejected rows"),
+    })
+    EquipmentImportResultDTO importEquipments(InputStream equipments, String contentEncoding) throws IOException;
+
+    @ApiOperation(value = "Downloads the whole catalogue as CSV or newline delimited JSON, optionally gzip compressed")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Every Equipment registered in the system, in id order"),
+    })
+    ResponseEntity<StreamingResponseBody> exportEquipments(EquipmentExportFormat format, boolean gzip);
+
+    @ApiOperation(value = "Returns the equipments created, updated or deleted after a given revision, oldest first")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Changes after the revision, and the revision to ask from next. "
+                    + "When reset is true the changes are no longer known and the whole catalogue must be reloaded"),
+    })
+    EquipmentChangesDTO changes(String since, Integer size);
+
+    @ApiOperation(value = "Pushes every equipment creation, deletion and stock change as a server-sent event")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Change events named change, with the revision as id. "
+                    + "Slow subscribers are disconnected and catch up with the changes since the last id they got"),
+    })
+    SseEmitter subscribe();
+
+    @ApiOperation(value = "Returns the registered NPs starting with a given prefix, in ascending order")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Up to limit NPs (10 by default, 100 at most) starting with the prefix"),
+    })
+    List<String> suggest(String prefix, Integer limit);
+
+    @ApiOperation(value = "Returns the number of equipments in total, by type, by brand and by brand and type")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Equipment counts. Every type is listed, brands only when they have equipments"),
+    })
+    EquipmentStatsDTO stats();
+
     @ApiOperation(value = "Returns Equipment found by a given name")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Success Equipment found in the system"),
+            @ApiResponse(code = 200, message = "Success Equipment found in the system, with its ETag and Last-Modified"),
+            @ApiResponse(code = 304, message = "Equipment not modified since the ETag given in If-None-Match"),
             @ApiResponse(code = 404, message = "Equipment with given name not found.")
     })
-    EquipmentDTO findByNp(@PathVariable String np) throws EquipmentNotFoundException;
+    EquipmentDTO findByNp(@PathVariable String np, WebRequest request) throws EquipmentNotFoundException;
 
-    @ApiOperation(value = "Returns a list of all Equipments registered in the system")
+    @ApiOperation(value = "Returns a list of all Equipments registered in the system, or a page of it when a filter, cursor or size is given. "
+            + "type and brand match exactly, model and np match by prefix")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "List of all Equipments registered in the system"),
+            @ApiResponse(code = 200, message = "List of Equipments registered in the system. The X-Next-Cursor header carries the cursor of the next page"),
+            @ApiResponse(code = 304, message = "Catalogue not modified since the ETag given in If-None-Match"),
     })
-    List<EquipmentDTO> listEquipments();
+    ResponseEntity<List<EquipmentDTO>> listEquipments(EquipmentFilterDTO filter, Long cursor, Integer size, WebRequest request);
+
+    @ApiOperation(value = "Streams all Equipments registered in the system as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stream of all Equipments registered in the system"),
+    })
+    ResponseEntity<StreamingResponseBody> streamEquipments();
+
+    @ApiOperation(value = "Streams all Equipments registered in the system as application/stream+json, reading the next page only when the client keeps up")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stream of all Equipments registered in the system"),
+    })
+    Flux<EquipmentDTO> publishEquipments();
+
+    @ApiOperation(value = "Delete a Equipment found by a given valid NP")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Success Equipment deleted in the system"),
+            @ApiResponse(code = 404, message = "Equipment with given NP not found.")
+    })
+    void deleteByNp(String np) throws EquipmentNotFoundException;
+
+    @ApiOperation(value = "Delete the Equipments found by the given ids and NPs, in batched statements")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of Equipments deleted, and the ids and NPs that matched none"),
+    })
+    EquipmentDeleteResultDTO deleteEquipments(EquipmentDeleteBatchDTO batch);
 
     @ApiOperation(value = "Delete a Equipment found by a given valid Id")
     @ApiResponses(value = {
@@ -41,4 +131,20 @@ public interface EquipmentControllerDocs {
             @ApiResponse(code = 404, message = "Equipment with given id not found.")
     })
     void deleteById(@PathVariable Long id) throws EquipmentNotFoundException;
+
+    @ApiOperation(value = "Increment the stock of a Equipment found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success Equipment stock incremented"),
+            @ApiResponse(code = 400, message = "Quantity informed exceeds the max stock capacity."),
+            @ApiResponse(code = 404, message = "Equipment with given id not found.")
+    })
+    EquipmentDTO increment(@PathVariable Long id, QuantityDTO quantityDTO) throws EquipmentNotFoundException, EquipmentsExceededException;
+
+    @ApiOperation(value = "Decrement the stock of a Equipment found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success Equipment stock decremented"),
+            @ApiResponse(code = 400, message = "Quantity informed exceeds the available stock."),
+            @ApiResponse(code = 404, message = "Equipment with given id not found.")
+    })
+    EquipmentDTO decrement(@PathVariable Long id, QuantityDTO quantityDTO) throws EquipmentNotFoundException, EquipmentsInsufficientException;
 }
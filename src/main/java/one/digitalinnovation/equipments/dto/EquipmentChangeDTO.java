@@ -0,0 +1,25 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentChangeDTO {
+
+    private String revision;
+
+    private EquipmentChangeType type;
+
+    private Long id;
+
+    private String np;
+
+    // current state of the equipment, absent for deletions
+    private EquipmentDTO equipment;
+}
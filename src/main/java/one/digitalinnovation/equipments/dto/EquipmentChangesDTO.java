@@ -0,0 +1,23 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentChangesDTO {
+
+    // revision to send as since on the next call
+    private String revision;
+
+    // the changes since the given revision are no longer known: reload the whole catalogue
+    private boolean reset;
+
+    private List<EquipmentChangeDTO> changes;
+}
@@ -0,0 +1,23 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+
+/**
+ * Number of equipments of one brand and type.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentCountDTO {
+
+    private String brand;
+
+    private EquipmentType type;
+
+    private Long count;
+}
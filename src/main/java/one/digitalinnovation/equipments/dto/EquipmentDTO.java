@@ -1,5 +1,6 @@
 package one.digitalinnovation.equipments.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,12 +9,15 @@ import one.digitalinnovation.equipments.enums.EquipmentType;
 
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.Instant;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class EquipmentDTO {
@@ -32,7 +36,28 @@ public class EquipmentDTO {
     @Size(min = 3, max = 200)
     private String model;
 
+    // taken from the NP when omitted
     @Enumerated(EnumType.STRING)
-    @NotNull
     private EquipmentType type;
+
+    @NotNull
+    @Min(0)
+    @Max(500)
+    private Integer max;
+
+    @NotNull
+    @Min(0)
+    @Max(100)
+    private Integer quantity;
+
+    // managed by the server, ignored on create
+    private Long version;
+
+    private Instant updatedAt;
+
+    @JsonIgnore
+    @AssertTrue(message = "quantity must not be greater than max")
+    public boolean isQuantityWithinMax() {
+        return max == null || quantity == null || quantity <= max;
+    }
 }
@@ -0,0 +1,19 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentDeleteBatchDTO {
+
+    private List<Long> ids;
+
+    private List<String> nps;
+}
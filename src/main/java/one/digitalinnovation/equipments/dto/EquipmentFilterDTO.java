@@ -0,0 +1,37 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+
+/**
+ * Search filters, all optional: type and brand match exactly, model and np match by prefix.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentFilterDTO {
+
+    private EquipmentType type;
+
+    private String brand;
+
+    private String model;
+
+    private String np;
+
+    public boolean isEmpty() {
+        return type == null && isBlank(brand) && isBlank(model) && isBlank(np);
+    }
+
+    public boolean isTypeOnly() {
+        return type != null && isBlank(brand) && isBlank(model) && isBlank(np);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
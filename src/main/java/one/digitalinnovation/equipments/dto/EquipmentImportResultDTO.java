@@ -0,0 +1,21 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentImportResultDTO {
+
+    private int created;
+
+    private int rejected;
+
+    private List<EquipmentImportRowDTO> rows;
+}
@@ -0,0 +1,24 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.equipments.enums.EquipmentImportStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentImportRowDTO {
+
+    private int row;
+
+    private String np;
+
+    private EquipmentImportStatus status;
+
+    private Long id;
+
+    private String message;
+}
@@ -0,0 +1,27 @@
+package one.digitalinnovation.equipments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+
+import java.util.Map;
+
+/**
+ * Equipment counts for the dashboards. Every type is listed, brands only when they have equipments.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentStatsDTO {
+
+    private long total;
+
+    private Map<EquipmentType, Long> byType;
+
+    private Map<String, Long> byBrand;
+
+    private Map<String, Map<EquipmentType, Long>> byBrandAndType;
+}
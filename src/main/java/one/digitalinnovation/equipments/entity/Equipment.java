@@ -6,18 +6,28 @@ import lombok.NoArgsConstructor;
 import one.digitalinnovation.equipments.enums.EquipmentType;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_equipment_type_id", columnList = "type, id"),
+        @Index(name = "idx_equipment_brand_id", columnList = "brand, id"),
+        @Index(name = "idx_equipment_model", columnList = "model")
+}, uniqueConstraints = @UniqueConstraint(name = Equipment.NP_UNIQUE_CONSTRAINT, columnNames = "np"))
 @NoArgsConstructor
 @AllArgsConstructor
 public class Equipment {
 
+    // the name Hibernate generated for the unique np column, kept so existing databases need no migration
+    public static final String NP_UNIQUE_CONSTRAINT = "UK_dufdt13407cs64yw21qnml4k7";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "equipment_sequence")
+    @SequenceGenerator(name = "equipment_sequence", sequenceName = "equipment_sequence", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String np;
 
     @Column(nullable = false)
@@ -30,5 +40,21 @@ public class Equipment {
     @Column(nullable = false)
     private EquipmentType type;
 
+    @Column(nullable = false)
+    private int max;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    private Instant updatedAt;
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
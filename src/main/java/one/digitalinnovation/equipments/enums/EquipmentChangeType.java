@@ -0,0 +1,8 @@
+package one.digitalinnovation.equipments.enums;
+
+public enum EquipmentChangeType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+}
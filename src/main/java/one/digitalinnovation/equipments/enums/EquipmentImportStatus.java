@@ -0,0 +1,8 @@
+package one.digitalinnovation.equipments.enums;
+
+public enum EquipmentImportStatus {
+
+    CREATED,
+    INVALID,
+    ALREADY_REGISTERED
+}
@@ -17,4 +17,43 @@ public enum EquipmentType {
 
     private final String description;
     private final String initialCode;
+
+    public static final int INITIAL_CODE_LENGTH = 5;
+
+    private static final int MIN_INITIAL_CODE;
+    private static final EquipmentType[] BY_INITIAL_CODE;
+
+    static {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (EquipmentType type : values()) {
+            int code = Integer.parseInt(type.initialCode);
+            min = Math.min(min, code);
+            max = Math.max(max, code);
+        }
+        MIN_INITIAL_CODE = min;
+        BY_INITIAL_CODE = new EquipmentType[max - min + 1];
+        for (EquipmentType type : values()) {
+            BY_INITIAL_CODE[Integer.parseInt(type.initialCode) - min] = type;
+        }
+    }
+
+    /**
+     * Decodes the type from the first five digits of an NP, or returns null when they are not a known initial code.
+     */
+    public static EquipmentType fromNp(String np) {
+        if (np == null || np.length() < INITIAL_CODE_LENGTH) {
+            return null;
+        }
+        int code = 0;
+        for (int i = 0; i < INITIAL_CODE_LENGTH; i++) {
+            int digit = np.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            code = code * 10 + digit;
+        }
+        int index = code - MIN_INITIAL_CODE;
+        return index < 0 || index >= BY_INITIAL_CODE.length ? null : BY_INITIAL_CODE[index];
+    }
 }
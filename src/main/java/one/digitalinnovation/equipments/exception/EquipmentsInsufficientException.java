@@ -0,0 +1,12 @@
+package one.digitalinnovation.equipments.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class EquipmentsInsufficientException extends Exception {
+
+    public EquipmentsInsufficientException(Long id, int quantityToDecrement) {
+        super(String.format("Equipments with %s ID to decrement informed exceeds the available stock: %s", id, quantityToDecrement));
+    }
+}
@@ -0,0 +1,188 @@
+package one.digitalinnovation.equipments.mapper;
+
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV layout of the catalogue export and import, one equipment per record after the {@link #HEADER} line.
+ * Fields holding a comma, a quote or a line break are quoted, with inner quotes doubled, so a record spans
+ * several lines when a field does: read them with a {@link RecordReader}.
+ */
+public final class EquipmentCsv {
+
+    public static final String HEADER = "id,np,brand,model,type,max,quantity,version,updated_at";
+
+    private static final int COLUMNS = 9;
+
+    private EquipmentCsv() {
+    }
+
+    public static void write(EquipmentDTO equipmentDTO, Writer writer) throws IOException {
+        writeNumber(equipmentDTO.getId(), writer);
+        writer.write(',');
+        writeText(equipmentDTO.getNp(), writer);
+        writer.write(',');
+        writeText(equipmentDTO.getBrand(), writer);
+        writer.write(',');
+        writeText(equipmentDTO.getModel(), writer);
+        writer.write(',');
+        writer.write(equipmentDTO.getType() == null ? "" : equipmentDTO.getType().name());
+        writer.write(',');
+        writeNumber(equipmentDTO.getMax(), writer);
+        writer.write(',');
+        writeNumber(equipmentDTO.getQuantity(), writer);
+        writer.write(',');
+        writeNumber(equipmentDTO.getVersion(), writer);
+        writer.write(',');
+        writer.write(equipmentDTO.getUpdatedAt() == null ? "" : equipmentDTO.getUpdatedAt().toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Parses one record written by {@link #write}. Empty fields are read as absent.
+     *
+     * @throws IllegalArgumentException when the record is not a well-formed equipment
+     */
+    public static EquipmentDTO parse(String line) {
+        List<String> fields = split(line);
+        if (fields.size() != COLUMNS) {
+            throw new IllegalArgumentException(String.format("expected %d fields but found %d", COLUMNS, fields.size()));
+        }
+        try {
+            return EquipmentDTO.builder()
+                    .id(fields.get(0) == null ? null : Long.valueOf(fields.get(0)))
+                    .np(fields.get(1))
+                    .brand(fields.get(2))
+                    .model(fields.get(3))
+                    .type(fields.get(4) == null ? null : EquipmentType.valueOf(fields.get(4)))
+                    .max(fields.get(5) == null ? null : Integer.valueOf(fields.get(5)))
+                    .quantity(fields.get(6) == null ? null : Integer.valueOf(fields.get(6)))
+                    .version(fields.get(7) == null ? null : Long.valueOf(fields.get(7)))
+                    .updatedAt(fields.get(8) == null ? null : Instant.parse(fields.get(8)))
+                    .build();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c != '\r' || i != line.length() - 1) {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+
+    private static void writeNumber(Number number, Writer writer) throws IOException {
+        if (number != null) {
+            writer.write(number.toString());
+        }
+    }
+
+    private static void writeText(String text, Writer writer) throws IOException {
+        if (text == null) {
+            return;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Splits the input into records at the line breaks outside quoted fields.
+     */
+    public static final class RecordReader {
+
+        private final Reader reader;
+        private final char[] buffer;
+        private int position;
+        private int limit;
+
+        public RecordReader(Reader reader, int bufferSize) {
+            this.reader = reader;
+            this.buffer = new char[bufferSize];
+        }
+
+        /**
+         * @return the next record without its line break, or null at the end of the input
+         */
+        public String readRecord() throws IOException {
+            StringBuilder record = null;
+            boolean quoted = false;
+            // a quote opens a quoted field only at its start, and right after a closing quote it is an escaped one
+            boolean fieldStart = true;
+            boolean afterQuote = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return record == null ? null : record.toString();
+                    }
+                }
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position++];
+                    if (quoted) {
+                        if (c == '"') {
+                            quoted = false;
+                            afterQuote = true;
+                        }
+                    } else if (c == '\n') {
+                        return append(record, start, position - 1 - start).toString();
+                    } else {
+                        quoted = c == '"' && (fieldStart || afterQuote);
+                        fieldStart = c == ',';
+                        afterQuote = false;
+                    }
+                }
+                record = append(record, start, limit - start);
+            }
+        }
+
+        private StringBuilder append(StringBuilder record, int start, int length) {
+            if (record == null) {
+                record = new StringBuilder(Math.max(length, 16));
+            }
+            return record.append(buffer, start, length);
+        }
+    }
+}
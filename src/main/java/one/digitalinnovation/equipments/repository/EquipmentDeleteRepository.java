@@ -0,0 +1,19 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface EquipmentDeleteRepository {
+
+    /**
+     * Deletes the equipments with the given ids in one transaction, returning the id, NP, brand and type of each deleted one by id.
+     */
+    Map<Long, EquipmentDTO> deleteByIds(Collection<Long> ids);
+
+    /**
+     * Deletes the equipments with the given NPs in one transaction, returning the id, NP, brand and type of each deleted one by id.
+     */
+    Map<Long, EquipmentDTO> deleteByNps(Collection<String> nps);
+}
@@ -0,0 +1,67 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locks the matching rows with {@code select ... for update} and deletes exactly those by id in the same transaction,
+ * so two statements both remove the equipments and tell which ones existed, without loading any entity. The delete
+ * takes the same row locks, so the read only adds its round trip. Reading the rows from the H2 {@code old table} of the
+ * delete would take one statement, but on H2 1.4.200 the next conditional update of that session then overwrites a
+ * concurrent one, and stock adjustments lose updates (see {@code EquipmentRepositoryTest}).
+ */
+class EquipmentDeleteRepositoryImpl implements EquipmentDeleteRepository {
+
+    private static final String LOCK_BY_ID_SQL = "select id, np, brand, type from equipment where id in (:keys) for update";
+    private static final String LOCK_BY_NP_SQL = "select id, np, brand, type from equipment where np in (:keys) for update";
+    private static final String DELETE_SQL = "delete from equipment where id in (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Map<Long, EquipmentDTO> deleteByIds(Collection<Long> ids) {
+        return delete(LOCK_BY_ID_SQL, ids);
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, EquipmentDTO> deleteByNps(Collection<String> nps) {
+        return delete(LOCK_BY_NP_SQL, nps);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, EquipmentDTO> delete(String lockSql, Collection<?> keys) {
+        Map<Long, EquipmentDTO> deleted = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return deleted;
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(lockSql)
+                .setParameter("keys", keys)
+                .getResultList();
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            deleted.put(id, EquipmentDTO.builder()
+                    .id(id)
+                    .np((String) row[1])
+                    .brand((String) row[2])
+                    .type(EquipmentType.valueOf((String) row[3]))
+                    .build());
+        }
+        if (!deleted.isEmpty()) {
+            entityManager.createNativeQuery(DELETE_SQL)
+                    .setParameter("ids", deleted.keySet())
+                    .executeUpdate();
+        }
+        return deleted;
+    }
+}
@@ -1,11 +1,47 @@
 package one.digitalinnovation.equipments.repository;
 
+import one.digitalinnovation.equipments.dto.EquipmentCountDTO;
 import one.digitalinnovation.equipments.entity.Equipment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface EquipmentRepository extends JpaRepository<Equipment, Long>, EquipmentSearchRepository, EquipmentDeleteRepository,
+        EquipmentStreamRepository {
 
     Optional<Equipment> findByNp(String np);
+
+    @Query("select e.np from Equipment e where e.np in :nps")
+    List<String> findRegisteredNps(@Param("nps") Collection<String> nps);
+
+    List<Equipment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select new one.digitalinnovation.equipments.dto.EquipmentCountDTO(e.brand, e.type, count(e)) from Equipment e group by e.brand, e.type")
+    List<EquipmentCountDTO> countByBrandAndType();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select e.np from Equipment e")
+    Stream<String> streamAllNps();
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Equipment e set e.quantity = e.quantity + :quantity, e.version = e.version + 1, e.updatedAt = current_timestamp where e.id = :id and e.quantity + :quantity between 0 and e.max")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Equipment e set e.quantity = e.quantity - :quantity, e.version = e.version + 1, e.updatedAt = current_timestamp where e.id = :id and e.quantity - :quantity between 0 and e.max")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,14 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+
+import java.util.List;
+
+public interface EquipmentSearchRepository {
+
+    /**
+     * Returns up to {@code limit} equipments matching the filter with an id greater than {@code afterId}, ordered by id.
+     */
+    List<Equipment> search(EquipmentFilterDTO filter, long afterId, int limit);
+}
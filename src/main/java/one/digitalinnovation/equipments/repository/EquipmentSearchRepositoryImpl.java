@@ -0,0 +1,70 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the search with only the predicates that were given, so the database can pick the matching index:
+ * exact type and brand use their composite indexes with the id, and the prefixes of model and np are sent as
+ * {@code like 'prefix%'}, which an index can serve as a range scan.
+ */
+class EquipmentSearchRepositoryImpl implements EquipmentSearchRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Equipment> search(EquipmentFilterDTO filter, long afterId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Equipment> query = builder.createQuery(Equipment.class);
+        Root<Equipment> equipment = query.from(Equipment.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.greaterThan(equipment.get("id"), afterId));
+        if (filter.getType() != null) {
+            predicates.add(builder.equal(equipment.get("type"), filter.getType()));
+        }
+        if (hasText(filter.getBrand())) {
+            predicates.add(builder.equal(equipment.get("brand"), filter.getBrand().trim()));
+        }
+        if (hasText(filter.getModel())) {
+            predicates.add(builder.like(equipment.get("model"), prefixPattern(filter.getModel()), LIKE_ESCAPE));
+        }
+        if (hasText(filter.getNp())) {
+            predicates.add(builder.like(equipment.get("np"), prefixPattern(filter.getNp()), LIKE_ESCAPE));
+        }
+
+        query.select(equipment)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.asc(equipment.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String prefixPattern(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (char c : prefix.trim().toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
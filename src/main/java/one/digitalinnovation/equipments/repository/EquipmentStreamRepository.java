@@ -0,0 +1,14 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.entity.Equipment;
+
+import java.util.stream.Stream;
+
+public interface EquipmentStreamRepository {
+
+    /**
+     * Streams every equipment in id order through a forward-only cursor. Must be called in a transaction
+     * and the stream closed once consumed.
+     */
+    Stream<Equipment> streamAll();
+}
@@ -0,0 +1,48 @@
+package one.digitalinnovation.equipments.repository;
+
+import one.digitalinnovation.equipments.entity.Equipment;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * H2 builds the whole result of a query before returning its first row unless lazy query execution is on,
+ * whatever the fetch size. It is switched on for the connection of the transaction until the stream is closed.
+ */
+class EquipmentStreamRepositoryImpl implements EquipmentStreamRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Equipment> streamAll() {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> setLazyQueryExecution(connection, true));
+        try {
+            return entityManager.createQuery("select e from Equipment e order by e.id", Equipment.class)
+                    .setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HINT_READONLY, true)
+                    .getResultStream()
+                    .onClose(() -> session.doWork(connection -> setLazyQueryExecution(connection, false)));
+        } catch (RuntimeException e) {
+            session.doWork(connection -> setLazyQueryExecution(connection, false));
+            throw e;
+        }
+    }
+
+    private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set lazy_query_execution " + lazy);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans the changes recorded in the {@link EquipmentChangeLog} out to the server-sent event subscribers.
+ * Every subscriber has its own bounded queue, drained by a small shared pool of sender threads, so publishing never
+ * waits for a client and an idle subscriber holds no thread and no buffer. A subscriber that falls
+ * {@code equipments.stream.buffer-size} events behind is disconnected: on reconnection it catches up with
+ * {@code /changes?since=} and the id of the last event it got.
+ * <p>
+ * A send blocks until the client takes the event, and cannot be interrupted: one that outlasts
+ * {@code equipments.stream.send-timeout} disconnects its subscriber and leaves its sender thread to it, the pool
+ * growing by one until the send gives up, so a stalled client never keeps the others waiting.
+ */
+@Slf4j
+@Component
+public class EquipmentEventBroadcaster {
+
+    static final String CHANGE_EVENT = "change";
+    private static final long NOT_SENDING = 0;
+    private static final long STALLED = -1;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor senders;
+    private final Counter disconnectedSubscribers;
+    private final Counter stalledSubscribers;
+
+    public EquipmentEventBroadcaster(EquipmentChangeLog equipmentChangeLog,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${equipments.stream.buffer-size:256}") int bufferSize,
+                                     @Value("${equipments.stream.timeout:30m}") Duration timeout,
+                                     @Value("${equipments.stream.sender-threads:2}") int senderThreads,
+                                     @Value("${equipments.stream.send-timeout:10s}") Duration sendTimeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread sender = new Thread(runnable, "equipment-events-" + senderCount.incrementAndGet());
+            sender.setDaemon(true);
+            return sender;
+        });
+        this.disconnectedSubscribers = Counter.builder("equipments.stream.slow.disconnected")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+        this.stalledSubscribers = Counter.builder("equipments.stream.stalled.disconnected")
+                .description("Subscribers disconnected because a send to them outlasted the send timeout")
+                .register(meterRegistry);
+        Gauge.builder("equipments.stream.subscribers", subscribers, Set::size)
+                .description("Open server-sent event subscriptions")
+                .register(meterRegistry);
+
+        equipmentChangeLog.addListener(this::publish);
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public void publish(EquipmentChangeDTO change) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.incrementAndGet() > bufferSize) {
+                disconnectedSubscribers.increment();
+                close(subscriber);
+            } else {
+                subscriber.queue.offer(change);
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to the idle subscribers, which keeps proxies from closing their connections
+     * and finds out the clients gone without closing theirs.
+     */
+    @Scheduled(fixedDelayString = "${equipments.stream.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.get() == 0) {
+                subscriber.heartbeat = true;
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose send has outlasted the send timeout. Their sender threads stay blocked in
+     * the send, so the pool gets one more thread for each until the send returns or fails.
+     */
+    @Scheduled(fixedDelayString = "${equipments.stream.send-check-interval:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince.get();
+            if (sendingSince != NOT_SENDING && now - sendingSince > sendTimeoutNanos
+                    && subscriber.sendingSince.compareAndSet(sendingSince, STALLED)) {
+                resizeSenders(1);
+                stalledSubscribers.increment();
+                close(subscriber);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(this::close);
+        senders.shutdown();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                close(subscriber);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            do {
+                if (subscriber.heartbeat) {
+                    subscriber.heartbeat = false;
+                    send(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+                EquipmentChangeDTO change;
+                while (!subscriber.closed && (change = subscriber.queue.poll()) != null) {
+                    subscriber.pending.decrementAndGet();
+                    send(subscriber, SseEmitter.event()
+                            .id(change.getRevision())
+                            .name(CHANGE_EVENT)
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+                subscriber.draining.set(false);
+                // an event queued after the last poll but before the flag was cleared has not scheduled a drain
+            } while (!subscriber.closed && (!subscriber.queue.isEmpty() || subscriber.heartbeat) && subscriber.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Closing an equipment event subscription: {}", e.getMessage());
+            close(subscriber);
+        } finally {
+            if (subscriber.closed) {
+                complete(subscriber);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendingSince.set(System.nanoTime());
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            if (subscriber.sendingSince.getAndSet(NOT_SENDING) == STALLED) {
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        // the maximum is raised before the core size and lowered after it, so the core never exceeds it
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            // completing waits for a send in progress: a draining sender completes the emitter once it stops
+            if (subscriber.draining.compareAndSet(false, true)) {
+                complete(subscriber);
+            }
+        }
+    }
+
+    private void complete(Subscriber subscriber) {
+        if (subscriber.completed.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<EquipmentChangeDTO> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong sendingSince = new AtomicLong(NOT_SENDING);
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean heartbeat;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package one.digitalinnovation.equipments.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentExportFormat;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.mapper.EquipmentCsv;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * Writes the whole catalogue to an output stream as it is read from a forward-only cursor, one row at a time,
+ * so the heap used does not depend on the size of the catalogue. H2 only streams a result set when lazy query
+ * execution is on, so it is switched on for the connection while the export runs.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class EquipmentExportService {
+
+    static final int FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String EXPORT_SQL = "select e.id, e.np, e.brand, e.model, e.type, e.max, e.quantity, e.version, e.updated_at "
+            + "from equipment e order by e.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    /**
+     * Writes every equipment in id order. The stream is flushed but left open.
+     */
+    public void export(EquipmentExportFormat format, OutputStream outputStream) throws IOException {
+        if (format == EquipmentExportFormat.NDJSON) {
+            exportNdjson(outputStream);
+        } else {
+            exportCsv(outputStream);
+        }
+    }
+
+    private void exportCsv(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(EquipmentCsv.HEADER);
+        writer.write('\n');
+        forEachEquipment(equipmentDTO -> EquipmentCsv.write(equipmentDTO, writer));
+        writer.flush();
+    }
+
+    private void exportNdjson(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(EquipmentDTO.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        forEachEquipment(equipmentDTO -> writer.writeValue(generator, equipmentDTO));
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    private void forEachEquipment(EquipmentWriter equipmentWriter) throws IOException {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                setLazyQueryExecution(connection, true);
+                try (PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            equipmentWriter.write(equipmentMapper.toDTO(toEquipment(rows)));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    setLazyQueryExecution(connection, false);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Equipment toEquipment(ResultSet rows) throws SQLException {
+        Timestamp updatedAt = rows.getTimestamp(9);
+        return new Equipment(rows.getLong(1),
+                rows.getString(2),
+                rows.getString(3),
+                rows.getString(4),
+                EquipmentType.valueOf(rows.getString(5)),
+                rows.getInt(6),
+                rows.getInt(7),
+                rows.getLong(8),
+                updatedAt == null ? null : updatedAt.toInstant());
+    }
+
+    private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set lazy_query_execution " + lazy);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EquipmentWriter {
+
+        void write(EquipmentDTO equipmentDTO) throws IOException;
+    }
+}
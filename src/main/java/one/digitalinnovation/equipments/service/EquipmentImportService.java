@@ -0,0 +1,261 @@
+package one.digitalinnovation.equipments.service;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportRowDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentImportStatus;
+import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import one.digitalinnovation.equipments.mapper.EquipmentCsv;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Imports equipments in chunks: every chunk is validated in memory, checked for duplicates with a single
+ * {@code np in (...)} query and inserted in one transaction, so Hibernate can send the inserts as JDBC batches.
+ * CSV imports are parsed chunk by chunk on the common fork-join pool, a few chunks ahead of the inserts.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class EquipmentImportService {
+
+    static final int CHUNK_SIZE = 500;
+    static final int PARSE_AHEAD = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final EquipmentRepository equipmentRepository;
+    private final EquipmentService equipmentService;
+    private final EquipmentStatsCounter equipmentStatsCounter;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    public EquipmentImportResultDTO importEquipments(Iterator<EquipmentDTO> equipments) {
+        List<EquipmentImportRowDTO> rows = new ArrayList<>();
+        List<EquipmentDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (equipments.hasNext()) {
+            chunk.add(equipments.next());
+            if (chunk.size() == CHUNK_SIZE) {
+                rows.addAll(importChunk(rows.size(), chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rows.addAll(importChunk(rows.size(), chunk));
+        }
+
+        int created = (int) rows.stream()
+                .filter(row -> row.getStatus() == EquipmentImportStatus.CREATED)
+                .count();
+        return new EquipmentImportResultDTO(created, rows.size() - created, rows);
+    }
+
+    /**
+     * Imports records in the {@link EquipmentCsv} layout, the header line being optional. Rows are numbered from zero
+     * after the header, and only the rejected ones are reported, so the report stays small for large files.
+     */
+    public EquipmentImportResultDTO importCsv(Reader reader) throws IOException {
+        EquipmentCsv.RecordReader lines = new EquipmentCsv.RecordReader(reader, BUFFER_SIZE);
+        Deque<CompletableFuture<ParsedChunk>> parsing = new ArrayDeque<>();
+        List<EquipmentImportRowDTO> rejected = new ArrayList<>();
+        int created = 0;
+        int rowCount = 0;
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line = lines.readRecord();
+        if (line != null && line.trim().equals(EquipmentCsv.HEADER)) {
+            line = lines.readRecord();
+        }
+        for (; line != null; line = lines.readRecord()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                parsing.add(parseAsync(rowCount, chunk));
+                rowCount += chunk.size();
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                if (parsing.size() > PARSE_AHEAD) {
+                    created += insertParsed(parsing.poll().join(), rejected);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            parsing.add(parseAsync(rowCount, chunk));
+        }
+        while (!parsing.isEmpty()) {
+            created += insertParsed(parsing.poll().join(), rejected);
+        }
+        return new EquipmentImportResultDTO(created, rejected.size(), rejected);
+    }
+
+    private static CompletableFuture<ParsedChunk> parseAsync(int firstRow, List<String> lines) {
+        return CompletableFuture.supplyAsync(() -> parse(firstRow, lines), ForkJoinPool.commonPool());
+    }
+
+    private static ParsedChunk parse(int firstRow, List<String> lines) {
+        ParsedChunk parsed = new ParsedChunk(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                parsed.equipments.add(EquipmentCsv.parse(lines.get(i)));
+                parsed.rows[parsed.equipments.size() - 1] = firstRow + i;
+            } catch (IllegalArgumentException e) {
+                parsed.invalid.add(rejected(firstRow + i, null, EquipmentImportStatus.INVALID, e.getMessage()));
+            }
+        }
+        return parsed;
+    }
+
+    private int insertParsed(ParsedChunk parsed, List<EquipmentImportRowDTO> rejected) {
+        rejected.addAll(parsed.invalid);
+        int created = 0;
+        for (EquipmentImportRowDTO row : importChunk(0, parsed.equipments)) {
+            row.setRow(parsed.rows[row.getRow()]);
+            if (row.getStatus() == EquipmentImportStatus.CREATED) {
+                created++;
+            } else {
+                rejected.add(row);
+            }
+        }
+        return created;
+    }
+
+    private List<EquipmentImportRowDTO> importChunk(int firstRow, List<EquipmentDTO> chunk) {
+        EquipmentImportRowDTO[] results = new EquipmentImportRowDTO[chunk.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            EquipmentDTO equipmentDTO = chunk.get(i);
+            String invalidReason = verifyRow(equipmentDTO);
+            if (invalidReason != null) {
+                results[i] = rejected(firstRow + i, equipmentDTO.getNp(), EquipmentImportStatus.INVALID, invalidReason);
+            } else if (candidates.putIfAbsent(equipmentDTO.getNp(), i) != null) {
+                results[i] = rejected(firstRow + i, equipmentDTO.getNp(), EquipmentImportStatus.ALREADY_REGISTERED,
+                        new EquipmentAlreadyRegisteredException(equipmentDTO.getNp()).getMessage());
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> registeredNps = new HashSet<>(equipmentRepository.findRegisteredNps(candidates.keySet()));
+            List<Integer> toInsert = new ArrayList<>(candidates.size());
+            for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+                if (registeredNps.contains(candidate.getKey())) {
+                    results[candidate.getValue()] = rejected(firstRow + candidate.getValue(), candidate.getKey(),
+                            EquipmentImportStatus.ALREADY_REGISTERED, new EquipmentAlreadyRegisteredException(candidate.getKey()).getMessage());
+                } else {
+                    toInsert.add(candidate.getValue());
+                }
+            }
+            insert(firstRow, chunk, toInsert, results);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void insert(int firstRow, List<EquipmentDTO> chunk, List<Integer> toInsert, EquipmentImportRowDTO[] results) {
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        List<Equipment> equipments = toInsert.stream()
+                .map(index -> {
+                    Equipment equipment = equipmentMapper.toModel(chunk.get(index));
+                    equipment.setId(null);
+                    equipment.setVersion(null);
+                    return equipment;
+                })
+                .collect(Collectors.toList());
+        equipmentStatsCounter.beginWrite();
+        try {
+            transactionTemplate.execute(status -> {
+                equipmentRepository.saveAll(equipments);
+                // flushed through the repository, which translates a unique violation into DataIntegrityViolationException
+                equipmentRepository.flush();
+                entityManager.clear();
+                return null;
+            });
+            for (int i = 0; i < toInsert.size(); i++) {
+                int index = toInsert.get(i);
+                Equipment equipment = equipments.get(i);
+                equipmentService.afterInsert(equipment);
+                results[index] = new EquipmentImportRowDTO(firstRow + index, equipment.getNp(), EquipmentImportStatus.CREATED, equipment.getId(), null);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // another request registered one of the NPs after the duplicate check: fall back to row by row inserts
+            insertOneByOne(firstRow, chunk, toInsert, results);
+        } finally {
+            equipmentStatsCounter.endWrite();
+        }
+    }
+
+    private void insertOneByOne(int firstRow, List<EquipmentDTO> chunk, List<Integer> toInsert, EquipmentImportRowDTO[] results) {
+        for (int index : toInsert) {
+            EquipmentDTO equipmentDTO = chunk.get(index);
+            try {
+                EquipmentDTO createdEquipment = equipmentService.createEquipment(equipmentDTO);
+                results[index] = new EquipmentImportRowDTO(firstRow + index, createdEquipment.getNp(), EquipmentImportStatus.CREATED, createdEquipment.getId(), null);
+            } catch (EquipmentAlreadyRegisteredException e) {
+                results[index] = rejected(firstRow + index, equipmentDTO.getNp(), EquipmentImportStatus.ALREADY_REGISTERED, e.getMessage());
+            } catch (EquipmentCodeException e) {
+                results[index] = rejected(firstRow + index, equipmentDTO.getNp(), EquipmentImportStatus.INVALID, e.getMessage());
+            }
+        }
+    }
+
+    private String verifyRow(EquipmentDTO equipmentDTO) {
+        Set<ConstraintViolation<EquipmentDTO>> violations = validator.validate(equipmentDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            equipmentService.verifyNpCode(equipmentDTO);
+        } catch (EquipmentCodeException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private static EquipmentImportRowDTO rejected(int row, String np, EquipmentImportStatus status, String message) {
+        return new EquipmentImportRowDTO(row, np, status, null, message);
+    }
+
+    private static final class ParsedChunk {
+
+        private final List<EquipmentDTO> equipments;
+        // row number of every parsed equipment
+        private final int[] rows;
+        private final List<EquipmentImportRowDTO> invalid = new ArrayList<>();
+
+        private ParsedChunk(int lines) {
+            this.equipments = new ArrayList<>(lines);
+            this.rows = new int[lines];
+        }
+    }
+}
@@ -1,59 +1,347 @@
 package one.digitalinnovation.equipments.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.cache.EquipmentCache;
+import one.digitalinnovation.equipments.cache.EquipmentReadReplica;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.cache.NpPrefixIndex;
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import one.digitalinnovation.equipments.dto.EquipmentChangesDTO;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteBatchDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import one.digitalinnovation.equipments.dto.EquipmentStatsDTO;
 import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
 import one.digitalinnovation.equipments.enums.EquipmentType;
 import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
 import one.digitalinnovation.equipments.exception.EquipmentCodeException;
 import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
 import one.digitalinnovation.equipments.mapper.EquipmentMapper;
 import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class EquipmentService {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_SUGGESTIONS = 10;
+    static final int MAX_SUGGESTIONS = 100;
+    static final int DELETE_CHUNK_SIZE = 500;
+    static final String OPERATION_TIMER = "equipments.service";
+
     private final EquipmentRepository equipmentRepository;
+    private final EntityManager entityManager;
+    private final EquipmentCache equipmentCache;
+    private final EquipmentStockLedger equipmentStockLedger;
+    private final NpPrefixIndex npPrefixIndex;
+    private final NpCodeValidator npCodeValidator;
+    private final EquipmentChangeLog equipmentChangeLog;
+    private final EquipmentSnapshotService equipmentSnapshotService;
+    private final EquipmentReadReplica equipmentReadReplica;
+    private final EquipmentStatsCounter equipmentStatsCounter;
     private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public EquipmentDTO createEquipment(EquipmentDTO equipmentDTO) throws EquipmentAlreadyRegisteredException, EquipmentCodeException {
         verifyNpCode(equipmentDTO);
-        verifyIfIsAlreadyRegistered(equipmentDTO.getNp());
         Equipment equipment = equipmentMapper.toModel(equipmentDTO);
-        Equipment savedEquipment = equipmentRepository.save(equipment);
-        return equipmentMapper.toDTO(savedEquipment);
+        equipment.setId(null);
+        equipment.setVersion(null);
+        equipmentStatsCounter.beginWrite();
+        try {
+            return afterInsert(insert(equipment));
+        } finally {
+            equipmentStatsCounter.endWrite();
+        }
     }
 
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public EquipmentDTO findByNp(String np) throws EquipmentNotFoundException {
-        Equipment foundEquipment = equipmentRepository.findByNp(np)
+        Optional<EquipmentDTO> snapshotted = equipmentSnapshotService.findByNp(np);
+        if (snapshotted.isPresent()) {
+            return snapshotted.get();
+        }
+        if (equipmentReadReplica.isServing()) {
+            return equipmentReadReplica.findByNp(np).orElseThrow(() -> new EquipmentNotFoundException(np));
+        }
+        return equipmentCache.get(np, key -> equipmentRepository.findByNp(key).map(equipmentMapper::toDTO))
                 .orElseThrow(() -> new EquipmentNotFoundException(np));
-        return equipmentMapper.toDTO(foundEquipment);
     }
 
+    /**
+     * Current catalogue revision. Read it before the data it describes, so a concurrent change can only make it older than the data.
+     */
+    public String catalogueRevision() {
+        return equipmentChangeLog.current();
+    }
+
+    /**
+     * Lists the changes after the given revision with the current state of every changed equipment,
+     * which costs one query whatever the size of the catalogue.
+     */
+    public EquipmentChangesDTO changesSince(String since, Integer size) {
+        String revision = equipmentChangeLog.current();
+        List<EquipmentChangeDTO> changes = equipmentChangeLog.changesSince(since, pageSize(size));
+        if (changes == null) {
+            return new EquipmentChangesDTO(revision, true, Collections.emptyList());
+        }
+
+        List<Long> changedIds = changes.stream()
+                .filter(change -> change.getType() != EquipmentChangeType.DELETED)
+                .map(EquipmentChangeDTO::getId)
+                .collect(Collectors.toList());
+        Map<Long, EquipmentDTO> changedEquipments = equipmentRepository.findAllById(changedIds)
+                .stream()
+                .map(equipmentMapper::toDTO)
+                .collect(Collectors.toMap(EquipmentDTO::getId, Function.identity()));
+        for (EquipmentChangeDTO change : changes) {
+            if (change.getType() != EquipmentChangeType.DELETED) {
+                EquipmentDTO equipment = changedEquipments.get(change.getId());
+                if (equipment == null) {
+                    // deleted after the change was listed, its own entry comes on the next call
+                    change.setType(EquipmentChangeType.DELETED);
+                }
+                change.setEquipment(equipment);
+            }
+        }
+        return new EquipmentChangesDTO(changes.isEmpty() ? revision : changes.get(changes.size() - 1).getRevision(), false, changes);
+    }
+
+    public List<String> suggest(String prefix, Integer limit) {
+        int suggestions = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return npPrefixIndex.suggest(prefix.trim(), suggestions);
+    }
+
+    /**
+     * Equipment counts by type and brand, kept up to date by every create and delete instead of counted per request.
+     */
+    public EquipmentStatsDTO stats() {
+        return equipmentStatsCounter.stats();
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public List<EquipmentDTO> listAll() {
+        Optional<List<EquipmentDTO>> snapshotted = equipmentSnapshotService.listAll();
+        if (snapshotted.isPresent()) {
+            return snapshotted.get();
+        }
         return equipmentRepository.findAll()
                 .stream()
                 .map(equipmentMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    public EquipmentPageDTO listPage(Long cursor, Integer size) {
+        int pageSize = pageSize(size);
+        // fetch one extra row to know whether there is a next page without a count query
+        return toPage(equipmentRepository.findByIdGreaterThanOrderByIdAsc(afterId(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    public EquipmentPageDTO searchPage(EquipmentFilterDTO filter, Long cursor, Integer size) {
+        int pageSize = pageSize(size);
+        if (equipmentReadReplica.isServing() && filter.isTypeOnly()) {
+            return pageOf(equipmentReadReplica.findByType(filter.getType(), afterId(cursor), pageSize + 1), pageSize);
+        }
+        return toPage(equipmentRepository.search(filter, afterId(cursor), pageSize + 1), pageSize);
+    }
+
+    /**
+     * Walks the whole catalogue through a forward-only cursor, handing each row to the consumer.
+     * Rows are detached as soon as they are consumed, so memory stays flat regardless of the table size.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<EquipmentDTO> consumer) {
+        try (Stream<Equipment> equipments = equipmentRepository.streamAll()) {
+            equipments.forEach(equipment -> {
+                consumer.accept(equipmentMapper.toDTO(equipment));
+                entityManager.detach(equipment);
+            });
+        }
+    }
+
+    /**
+     * Publishes the whole catalogue one keyset page at a time. The next page is only queried once the subscriber
+     * has requested it, so no more than one page is held in memory and no database connection is held between pages.
+     * Spring MVC writes every item with a blocking send on the thread that emitted it, so a slow consumer still holds
+     * its HTTP connection and a bounded elastic thread while a write waits for it.
+     */
+    public Flux<EquipmentDTO> publishAll() {
+        return Flux.<List<EquipmentDTO>, Long>generate(() -> 0L, (cursor, sink) -> {
+            EquipmentPageDTO page = listPage(cursor, DEFAULT_PAGE_SIZE);
+            if (!page.getContent().isEmpty()) {
+                sink.next(page.getContent());
+            }
+            if (page.getNext() == null) {
+                sink.complete();
+                return cursor;
+            }
+            return page.getNext();
+        })
+                .concatMapIterable(Function.identity(), 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
     public void deleteById(Long id) throws EquipmentNotFoundException {
-        verifyIfExists(id);
-        equipmentRepository.deleteById(id);
+        equipmentStatsCounter.beginWrite();
+        try {
+            Map<Long, EquipmentDTO> deletedEquipments = equipmentRepository.deleteByIds(Collections.singleton(id));
+            if (deletedEquipments.isEmpty()) {
+                throw new EquipmentNotFoundException(id);
+            }
+            forget(deletedEquipments);
+        } finally {
+            equipmentStatsCounter.endWrite();
+        }
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public void deleteByNp(String np) throws EquipmentNotFoundException {
+        equipmentStatsCounter.beginWrite();
+        try {
+            Map<Long, EquipmentDTO> deletedEquipments = equipmentRepository.deleteByNps(Collections.singleton(np));
+            if (deletedEquipments.isEmpty()) {
+                throw new EquipmentNotFoundException(np);
+            }
+            forget(deletedEquipments);
+        } finally {
+            equipmentStatsCounter.endWrite();
+        }
+    }
+
+    /**
+     * Deletes the given ids and NPs with one locked read and one delete per chunk of {@value #DELETE_CHUNK_SIZE} keys,
+     * reporting the keys that matched no equipment.
+     */
+    public EquipmentDeleteResultDTO deleteAll(EquipmentDeleteBatchDTO batch) {
+        List<Long> ids = batch.getIds() == null ? Collections.emptyList() : batch.getIds();
+        List<String> nps = batch.getNps() == null ? Collections.emptyList() : batch.getNps();
+        Map<Long, EquipmentDTO> deletedEquipments = new HashMap<>();
+        equipmentStatsCounter.beginWrite();
+        try {
+            for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+                deletedEquipments.putAll(equipmentRepository.deleteByIds(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size()))));
+            }
+            for (int from = 0; from < nps.size(); from += DELETE_CHUNK_SIZE) {
+                deletedEquipments.putAll(equipmentRepository.deleteByNps(nps.subList(from, Math.min(from + DELETE_CHUNK_SIZE, nps.size()))));
+            }
+        } finally {
+            // the chunks deleted before a failure are forgotten all the same
+            forget(deletedEquipments);
+            equipmentStatsCounter.endWrite();
+        }
+
+        Set<String> deletedNps = deletedEquipments.values().stream()
+                .map(EquipmentDTO::getNp)
+                .collect(Collectors.toSet());
+        return new EquipmentDeleteResultDTO(deletedEquipments.size(),
+                ids.stream().filter(id -> !deletedEquipments.containsKey(id)).distinct().collect(Collectors.toList()),
+                nps.stream().filter(np -> !deletedNps.contains(np)).distinct().collect(Collectors.toList()));
+    }
+
+    /**
+     * Adds to the stock with a single conditional update, so concurrent increments never lose updates
+     * and never go past the max capacity.
+     */
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public EquipmentDTO increment(Long id, int quantityToIncrement) throws EquipmentNotFoundException, EquipmentsExceededException {
+        if (equipmentStockLedger.isEnabled()) {
+            return equipmentStockLedger.increment(id, quantityToIncrement);
+        }
+        if (equipmentRepository.incrementQuantity(id, quantityToIncrement) == 0) {
+            verifyIfExists(id);
+            throw new EquipmentsExceededException(id, quantityToIncrement);
+        }
+        return adjusted(id);
+    }
+
+    @Timed(value = OPERATION_TIMER, histogram = true)
+    public EquipmentDTO decrement(Long id, int quantityToDecrement) throws EquipmentNotFoundException, EquipmentsInsufficientException {
+        if (equipmentStockLedger.isEnabled()) {
+            return equipmentStockLedger.decrement(id, quantityToDecrement);
+        }
+        if (equipmentRepository.decrementQuantity(id, quantityToDecrement) == 0) {
+            verifyIfExists(id);
+            throw new EquipmentsInsufficientException(id, quantityToDecrement);
+        }
+        return adjusted(id);
+    }
+
+    /**
+     * Relies on the unique constraint of {@link Equipment#getNp()} instead of a previous lookup,
+     * which costs one statement per insert and stays correct when the same NP is registered concurrently.
+     * Any other integrity violation is not the client's doing and is rethrown.
+     */
+    private Equipment insert(Equipment equipment) throws EquipmentAlreadyRegisteredException {
+        try {
+            return equipmentRepository.saveAndFlush(equipment);
+        } catch (DataIntegrityViolationException e) {
+            if (violatesUniqueNp(e)) {
+                throw new EquipmentAlreadyRegisteredException(equipment.getNp());
+            }
+            throw e;
+        }
     }
 
-    private void verifyIfIsAlreadyRegistered(String np) throws EquipmentAlreadyRegisteredException {
-        Optional<Equipment> optSavedBeer = equipmentRepository.findByNp(np);
-        if (optSavedBeer.isPresent()) {
-            throw new EquipmentAlreadyRegisteredException(np);
+    private static boolean violatesUniqueNp(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
         }
+        // databases decorate the name, H2 reports PUBLIC.<NAME>_INDEX_<N>
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null
+                && constraintName.toUpperCase(Locale.ROOT).contains(Equipment.NP_UNIQUE_CONSTRAINT.toUpperCase(Locale.ROOT));
+    }
+
+    private static int pageSize(Integer size) {
+        return size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static long afterId(Long cursor) {
+        return cursor == null ? 0L : cursor;
+    }
+
+    private EquipmentPageDTO toPage(List<Equipment> equipments, int pageSize) {
+        return pageOf(equipments.stream()
+                .map(equipmentMapper::toDTO)
+                .collect(Collectors.toList()), pageSize);
+    }
+
+    private static EquipmentPageDTO pageOf(List<EquipmentDTO> equipmentDTOs, int pageSize) {
+        if (equipmentDTOs.size() <= pageSize) {
+            return new EquipmentPageDTO(equipmentDTOs, null);
+        }
+        List<EquipmentDTO> content = equipmentDTOs.subList(0, pageSize);
+        return new EquipmentPageDTO(content, content.get(pageSize - 1).getId());
     }
 
     private Equipment verifyIfExists(Long id) throws EquipmentNotFoundException {
@@ -61,26 +349,48 @@ public class EquipmentService {
                 .orElseThrow(() -> new EquipmentNotFoundException(id));
     }
 
+    /**
+     * Records an inserted equipment in the change log, the cache, the NP index and the counts, whichever path inserted it.
+     */
+    EquipmentDTO afterInsert(Equipment savedEquipment) {
+        EquipmentDTO createdEquipment = equipmentMapper.toDTO(savedEquipment);
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, createdEquipment);
+        equipmentCache.invalidate(savedEquipment.getNp());
+        npPrefixIndex.add(savedEquipment.getNp());
+        equipmentStatsCounter.add(savedEquipment.getBrand(), savedEquipment.getType());
+        return createdEquipment;
+    }
+
+    private void forget(Map<Long, EquipmentDTO> deletedEquipments) {
+        deletedEquipments.forEach((id, deletedEquipment) -> {
+            String np = deletedEquipment.getNp();
+            equipmentChangeLog.record(EquipmentChangeType.DELETED, EquipmentDTO.builder().id(id).np(np).build());
+            equipmentStockLedger.forget(id);
+            equipmentCache.invalidate(np);
+            npPrefixIndex.remove(np);
+            equipmentStatsCounter.remove(deletedEquipment.getBrand(), deletedEquipment.getType());
+        });
+    }
+
+    private EquipmentDTO adjusted(Long id) throws EquipmentNotFoundException {
+        Equipment adjustedEquipment = verifyIfExists(id);
+        EquipmentDTO adjustedEquipmentDTO = equipmentMapper.toDTO(adjustedEquipment);
+        equipmentChangeLog.record(EquipmentChangeType.UPDATED, adjustedEquipmentDTO);
+        equipmentCache.invalidate(adjustedEquipment.getNp());
+        return adjustedEquipmentDTO;
+    }
+
     //Jacson Ramos
+    /**
+     * Checks the NP format and that it encodes the given type. When the type is omitted it is taken from the NP.
+     */
     protected void verifyNpCode(EquipmentDTO equipmentDTO) throws EquipmentCodeException {
-        EquipmentType type = equipmentDTO.getType();
+        EquipmentType type = npCodeValidator.validate(equipmentDTO.getNp());
 
-        if (!equipmentDTO.getNp().startsWith(type.getInitialCode())){
+        if (equipmentDTO.getType() == null) {
+            equipmentDTO.setType(type);
+        } else if (equipmentDTO.getType() != type) {
             throw new EquipmentCodeException(equipmentDTO.getNp());
         }
-
-    }
-/*
-    public EquipmentDTO increment(Long id, int quantityToIncrement) throws EquipmentNotFoundException, EquipmentsExceededException {
-        Equipment equipmentToIncrementStock = verifyIfExists(id);
-        int quantityAfterIncrement = quantityToIncrement + equipmentToIncrementStock.getQuantity();
-        if (quantityAfterIncrement <= equipmentToIncrementStock.getMax()) {
-            equipmentToIncrementStock.setQuantity(equipmentToIncrementStock.getQuantity() + quantityToIncrement);
-            Equipment incrementedEquipmentStock = equipmentRepository.save(equipmentToIncrementStock);
-            return equipmentMapper.toDTO(incrementedEquipmentStock);
-        }
-        throw new EquipmentsExceededException(id, quantityToIncrement);
     }
-    */
-
 }
@@ -0,0 +1,226 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.cache.EquipmentReadReplica;
+import one.digitalinnovation.equipments.cache.EquipmentSnapshot;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.cache.NpPrefixIndex;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps an {@link EquipmentSnapshot} of the catalogue in {@code equipments.snapshot.path}, written every
+ * {@code equipments.snapshot.interval} and on shutdown. When the application starts on an empty database with a
+ * snapshot on disk, the snapshot is mapped before the first request and serves {@code findByNp} and {@code listAll}
+ * while its rows are copied back into the database in the background, after the application reports ready.
+ * Writes and the reads the snapshot cannot serve are refused until the copy is over, so no client sees the half-filled
+ * database, and the change log then moves to a new revision so clients holding the old one reload the catalogue.
+ */
+@Slf4j
+@Service
+public class EquipmentSnapshotService implements SmartInitializingSingleton {
+
+    static final int RESTORE_CHUNK_SIZE = 500;
+    // matches the allocation size of the equipment sequence, so ids handed out by Hibernate start after the restored ones
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+    private static final String SNAPSHOT_SQL = "select e.id, e.np, e.brand, e.model, e.type, e.max, e.quantity, e.version, e.updated_at "
+            + "from equipment e order by e.np";
+    private static final String RESTORE_SQL = "insert into equipment (id, np, brand, model, type, max, quantity, version, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final EquipmentRepository equipmentRepository;
+    private final EquipmentStockLedger equipmentStockLedger;
+    private final NpPrefixIndex npPrefixIndex;
+    private final EquipmentReadReplica equipmentReadReplica;
+    private final EquipmentStatsCounter equipmentStatsCounter;
+    private final EquipmentChangeLog equipmentChangeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path path;
+    private final AtomicLong readyMillis = new AtomicLong();
+    private volatile EquipmentSnapshot serving;
+
+    public EquipmentSnapshotService(EquipmentRepository equipmentRepository,
+                                    EquipmentStockLedger equipmentStockLedger,
+                                    NpPrefixIndex npPrefixIndex,
+                                    EquipmentReadReplica equipmentReadReplica,
+                                    EquipmentStatsCounter equipmentStatsCounter,
+                                    EquipmentChangeLog equipmentChangeLog,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${equipments.snapshot.path:}") String path) {
+        this.equipmentRepository = equipmentRepository;
+        this.equipmentStockLedger = equipmentStockLedger;
+        this.npPrefixIndex = npPrefixIndex;
+        this.equipmentReadReplica = equipmentReadReplica;
+        this.equipmentStatsCounter = equipmentStatsCounter;
+        this.equipmentChangeLog = equipmentChangeLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.path = path.isBlank() ? null : Paths.get(path);
+
+        TimeGauge.builder("equipments.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from the JVM start to the application reporting ready")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (path == null || !Files.exists(path) || equipmentRepository.count() > 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            EquipmentSnapshot snapshot = EquipmentSnapshot.open(path);
+            snapshot.forEach(equipmentDTO -> npPrefixIndex.add(equipmentDTO.getNp()));
+            serving = snapshot;
+            log.info("Serving {} equipments from the snapshot {}, mapped in {} ms", snapshot.size(), path, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Ignoring the equipment snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMillis.set(ManagementFactory.getRuntimeMXBean().getUptime());
+        log.info("Ready {} ms after the JVM start", readyMillis.get());
+        EquipmentSnapshot snapshot = serving;
+        if (snapshot != null) {
+            Thread restorer = new Thread(() -> restore(snapshot), "equipment-snapshot-restore");
+            restorer.setDaemon(true);
+            restorer.start();
+        }
+    }
+
+    /**
+     * True while the database is being filled from the snapshot: reads may be served from the snapshot and writes are refused.
+     */
+    public boolean isRestoring() {
+        return serving != null;
+    }
+
+    /**
+     * Returns the equipment from the snapshot, or empty when no snapshot is served or it has no such NP.
+     */
+    public Optional<EquipmentDTO> findByNp(String np) {
+        EquipmentSnapshot snapshot = serving;
+        return snapshot == null ? Optional.empty() : Optional.ofNullable(snapshot.findByNp(np));
+    }
+
+    /**
+     * Returns the whole catalogue from the snapshot, or empty when no snapshot is served.
+     */
+    public Optional<List<EquipmentDTO>> listAll() {
+        EquipmentSnapshot snapshot = serving;
+        return snapshot == null ? Optional.empty() : Optional.of(snapshot.listAll());
+    }
+
+    @Scheduled(fixedDelayString = "${equipments.snapshot.interval:300000}", initialDelayString = "${equipments.snapshot.interval:300000}")
+    public void scheduledSave() {
+        if (path != null) {
+            save();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void save() {
+        if (path == null || isRestoring()) {
+            return;
+        }
+        long start = System.nanoTime();
+        // stock deltas held by the write-behind ledger belong in the snapshot
+        equipmentStockLedger.flush();
+        try (EquipmentSnapshot.Writer writer = new EquipmentSnapshot.Writer(path)) {
+            int[] size = new int[1];
+            jdbcTemplate.query(SNAPSHOT_SQL, rows -> {
+                Timestamp updatedAt = rows.getTimestamp(9);
+                try {
+                    writer.add(EquipmentDTO.builder()
+                            .id(rows.getLong(1))
+                            .np(rows.getString(2))
+                            .brand(rows.getString(3))
+                            .model(rows.getString(4))
+                            .type(EquipmentType.valueOf(rows.getString(5)))
+                            .max(rows.getInt(6))
+                            .quantity(rows.getInt(7))
+                            .version(rows.getLong(8))
+                            .updatedAt(updatedAt == null ? null : updatedAt.toInstant())
+                            .build());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                size[0]++;
+            });
+            writer.commit();
+            log.info("Saved {} equipments to the snapshot {} in {} ms", size[0], path, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException | DataAccessException e) {
+            log.warn("Could not save the equipment snapshot {}", path, e);
+        }
+    }
+
+    private void restore(EquipmentSnapshot snapshot) {
+        long start = System.nanoTime();
+        List<Object[]> chunk = new ArrayList<>(RESTORE_CHUNK_SIZE);
+        long[] maxId = new long[1];
+        try {
+            snapshot.forEach(equipmentDTO -> {
+                chunk.add(new Object[]{equipmentDTO.getId(), equipmentDTO.getNp(), equipmentDTO.getBrand(), equipmentDTO.getModel(),
+                        equipmentDTO.getType().name(), equipmentDTO.getMax(), equipmentDTO.getQuantity(), equipmentDTO.getVersion(),
+                        equipmentDTO.getUpdatedAt() == null ? null : Timestamp.from(equipmentDTO.getUpdatedAt())});
+                maxId[0] = Math.max(maxId[0], equipmentDTO.getId());
+                if (chunk.size() == RESTORE_CHUNK_SIZE) {
+                    insert(chunk);
+                    chunk.clear();
+                }
+            });
+            insert(chunk);
+            jdbcTemplate.execute("alter sequence equipment_sequence restart with " + (maxId[0] + SEQUENCE_ALLOCATION_SIZE + 1));
+        } catch (DataAccessException e) {
+            // keep serving the snapshot and refusing writes: the database only holds part of the catalogue
+            log.error("Could not restore the equipment snapshot {}", path, e);
+            return;
+        }
+        // restored rows are not recorded as changes, so neither the counts nor the replica would see them otherwise
+        equipmentStatsCounter.reload();
+        if (equipmentReadReplica.isServing()) {
+            equipmentReadReplica.refresh();
+        }
+        serving = null;
+        equipmentChangeLog.reset();
+        log.info("Restored {} equipments from the snapshot {} in {} ms", snapshot.size(), path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void insert(List<Object[]> chunk) {
+        if (!chunk.isEmpty()) {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(RESTORE_SQL, chunk));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.cache.EquipmentCache;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind ledger for stock adjustments, enabled with {@code equipments.stock.write-behind.enabled}.
+ * Adjustments are accepted in memory against the max capacity, coalesced per equipment
+ * and written to the database in periodic JDBC batches, so a burst of small deltas costs one update per equipment.
+ * It assumes this instance is the only writer of the stock while enabled.
+ */
+@Slf4j
+@Component
+public class EquipmentStockLedger {
+
+    private static final String FLUSH_SQL = "update equipment set quantity = quantity + ?, version = version + 1, updated_at = current_timestamp where id = ?";
+
+    private final EquipmentRepository equipmentRepository;
+    private final EquipmentCache equipmentCache;
+    private final EquipmentChangeLog equipmentChangeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Timer flushTimer;
+    private final ConcurrentMap<Long, StockEntry> entries = new ConcurrentHashMap<>();
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    public EquipmentStockLedger(EquipmentRepository equipmentRepository,
+                                EquipmentCache equipmentCache,
+                                EquipmentChangeLog equipmentChangeLog,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${equipments.stock.write-behind.enabled:false}") boolean enabled) {
+        this.equipmentRepository = equipmentRepository;
+        this.equipmentCache = equipmentCache;
+        this.equipmentChangeLog = equipmentChangeLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.flushTimer = Timer.builder("equipments.stock.flush")
+                .description("Time spent writing the pending stock deltas to the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("equipments.stock.pending.equipments", entries, pending -> pending.values().stream()
+                .filter(entry -> entry.pending.get() != 0)
+                .count())
+                .description("Equipments with stock deltas not yet written to the database")
+                .register(meterRegistry);
+        Gauge.builder("equipments.stock.pending.quantity", entries, pending -> pending.values().stream()
+                .mapToInt(entry -> Math.abs(entry.pending.get()))
+                .sum())
+                .description("Sum of the stock deltas not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public EquipmentDTO increment(Long id, int quantityToIncrement) throws EquipmentNotFoundException, EquipmentsExceededException {
+        EquipmentDTO adjustedEquipment = adjust(id, quantityToIncrement);
+        if (adjustedEquipment == null) {
+            throw new EquipmentsExceededException(id, quantityToIncrement);
+        }
+        return adjustedEquipment;
+    }
+
+    public EquipmentDTO decrement(Long id, int quantityToDecrement) throws EquipmentNotFoundException, EquipmentsInsufficientException {
+        EquipmentDTO adjustedEquipment = adjust(id, -quantityToDecrement);
+        if (adjustedEquipment == null) {
+            throw new EquipmentsInsufficientException(id, quantityToDecrement);
+        }
+        return adjustedEquipment;
+    }
+
+    public void forget(Long id) {
+        entries.remove(id);
+    }
+
+    @Scheduled(fixedDelayString = "${equipments.stock.write-behind.flush-interval:1000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<StockEntry> flushedEntries = new ArrayList<>();
+        for (Map.Entry<Long, StockEntry> entry : entries.entrySet()) {
+            int delta = entry.getValue().pending.getAndSet(0);
+            if (delta != 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+                flushedEntries.add(entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] updatedRows;
+        try {
+            updatedRows = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+        } catch (DataAccessException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                flushedEntries.get(i).pending.addAndGet((int) batch.get(i)[0]);
+            }
+            log.warn("Could not flush {} pending stock deltas, retrying on the next flush", batch.size(), e);
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            StockEntry flushedEntry = flushedEntries.get(i);
+            Long id = (Long) batch.get(i)[1];
+            if (updatedRows != null && updatedRows[i] == 0) {
+                // the equipment was deleted meanwhile
+                entries.remove(id, flushedEntry);
+            } else {
+                equipmentChangeLog.record(EquipmentChangeType.UPDATED, flushedEntry.snapshot.toBuilder()
+                        .quantity(flushedEntry.projected.get())
+                        .build());
+            }
+            equipmentCache.invalidate(flushedEntry.snapshot.getNp());
+        }
+    }
+
+    private EquipmentDTO adjust(Long id, int delta) throws EquipmentNotFoundException {
+        StockEntry entry = entries.computeIfAbsent(id, this::load);
+        if (entry == null) {
+            throw new EquipmentNotFoundException(id);
+        }
+
+        int current;
+        do {
+            current = entry.projected.get();
+            int adjusted = current + delta;
+            if (adjusted > entry.snapshot.getMax() || adjusted < 0) {
+                return null;
+            }
+        } while (!entry.projected.compareAndSet(current, current + delta));
+        entry.pending.addAndGet(delta);
+
+        return entry.snapshot.toBuilder()
+                .quantity(current + delta)
+                .build();
+    }
+
+    private StockEntry load(Long id) {
+        return equipmentRepository.findById(id)
+                .map(equipment -> new StockEntry(equipmentMapper.toDTO(equipment)))
+                .orElse(null);
+    }
+
+    private static final class StockEntry {
+
+        private final EquipmentDTO snapshot;
+        private final AtomicInteger projected;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private StockEntry(EquipmentDTO snapshot) {
+            this.snapshot = snapshot;
+            this.projected = new AtomicInteger(snapshot.getQuantity());
+        }
+    }
+}
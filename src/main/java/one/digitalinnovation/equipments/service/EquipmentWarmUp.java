@@ -0,0 +1,92 @@
+package one.digitalinnovation.equipments.service;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read traffic through {@link EquipmentService} at startup, so the JIT has compiled the hot paths, every pooled
+ * connection has parsed the statements and the equipment cache holds the first page before the first request comes.
+ * The iterations are shared by as many threads as the pool has connections, so each of them is opened and used.
+ * Application runners complete before the readiness state turns to accepting traffic, so the readiness probe only
+ * reports UP once the warm-up is over. Nothing is written.
+ */
+@Slf4j
+@Component
+public class EquipmentWarmUp implements ApplicationRunner {
+
+    static final int PAGE_SIZE = 100;
+    private static final int SUGGEST_PREFIX_LENGTH = 5;
+
+    private final EquipmentService equipmentService;
+    private final int iterations;
+    private final int threads;
+
+    public EquipmentWarmUp(EquipmentService equipmentService,
+                           @Value("${equipments.warm-up.iterations:0}") int iterations,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int threads) {
+        this.equipmentService = equipmentService;
+        this.iterations = iterations;
+        this.threads = Math.max(1, Math.min(threads, iterations));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (iterations <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger remaining = new AtomicInteger(iterations);
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletableFuture<?>[] workers = new CompletableFuture<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = CompletableFuture.runAsync(() -> warmUp(remaining, completed), executor);
+            }
+            CompletableFuture.allOf(workers).join();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Warmed up with {} iterations on {} threads in {} ms", completed.get(), threads, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void warmUp(AtomicInteger remaining, AtomicInteger completed) {
+        while (remaining.getAndDecrement() > 0) {
+            EquipmentPageDTO page = equipmentService.listPage(null, PAGE_SIZE);
+            if (page.getContent().isEmpty()) {
+                remaining.set(0);
+                return;
+            }
+            exercise(page.getContent());
+            completed.incrementAndGet();
+        }
+    }
+
+    private void exercise(List<EquipmentDTO> equipments) {
+        EquipmentDTO first = equipments.get(0);
+        for (EquipmentDTO equipment : equipments) {
+            try {
+                equipmentService.findByNp(equipment.getNp());
+            } catch (EquipmentNotFoundException e) {
+                // deleted since the page was read
+            }
+        }
+        equipmentService.searchPage(EquipmentFilterDTO.builder().type(first.getType()).build(), null, PAGE_SIZE);
+        equipmentService.searchPage(EquipmentFilterDTO.builder().brand(first.getBrand()).build(), null, PAGE_SIZE);
+        equipmentService.suggest(first.getNp().substring(0, Math.min(SUGGEST_PREFIX_LENGTH, first.getNp().length())), null);
+        equipmentService.changesSince(equipmentService.catalogueRevision(), null);
+    }
+}
@@ -0,0 +1,61 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates the NP format, nine digits starting with a known type initial code, without regex or allocation.
+ * When {@code equipments.np.check-digit} is enabled, the last digit must also be the Luhn check digit of the first eight.
+ */
+@Component
+public class NpCodeValidator {
+
+    static final int NP_LENGTH = 9;
+
+    private final boolean checkDigit;
+
+    public NpCodeValidator(@Value("${equipments.np.check-digit:false}") boolean checkDigit) {
+        this.checkDigit = checkDigit;
+    }
+
+    /**
+     * Returns the type encoded in the NP.
+     */
+    public EquipmentType validate(String np) throws EquipmentCodeException {
+        if (np == null || np.length() != NP_LENGTH || !isDigits(np)) {
+            throw new EquipmentCodeException(np);
+        }
+        EquipmentType type = EquipmentType.fromNp(np);
+        if (type == null || (checkDigit && !hasLuhnCheckDigit(np))) {
+            throw new EquipmentCodeException(np);
+        }
+        return type;
+    }
+
+    private static boolean isDigits(String np) {
+        for (int i = 0; i < np.length(); i++) {
+            char c = np.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasLuhnCheckDigit(String np) {
+        int sum = 0;
+        for (int i = 0; i < NP_LENGTH; i++) {
+            int digit = np.charAt(NP_LENGTH - 1 - i) - '0';
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+}
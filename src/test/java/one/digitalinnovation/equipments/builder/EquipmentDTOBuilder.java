@@ -4,6 +4,8 @@ import lombok.Builder;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
 import one.digitalinnovation.equipments.enums.EquipmentType;
 
+import java.time.Instant;
+
 @Builder
 public class EquipmentDTOBuilder {
 
@@ -22,11 +24,25 @@ public class EquipmentDTOBuilder {
     @Builder.Default
     private EquipmentType type = EquipmentType.MOTORPUMP;
 
+    @Builder.Default
+    private int max = 50;
+
+    @Builder.Default
+    private int quantity = 10;
+
+    private Long version;
+
+    private Instant updatedAt;
+
     public EquipmentDTO toEquipmentDTO() {
         return new EquipmentDTO(id,
                 np,
                 brand,
                 model,
-                type);
+                type,
+                max,
+                quantity,
+                version,
+                updatedAt);
     }
 }
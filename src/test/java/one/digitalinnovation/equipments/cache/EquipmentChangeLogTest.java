@@ -0,0 +1,115 @@
+package one.digitalinnovation.equipments.cache;
+
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EquipmentChangeLogTest {
+
+    @Test
+    void whenAnEquipmentChangesTwiceThenOnlyItsLatestChangeIsListed() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+        String initialRevision = equipmentChangeLog.current();
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(1L, "140150001"));
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(2L, "140150002"));
+        equipmentChangeLog.record(EquipmentChangeType.UPDATED, equipment(1L, "140150001"));
+
+        // then
+        List<EquipmentChangeDTO> changes = equipmentChangeLog.changesSince(initialRevision, 10);
+        assertThat(changes, hasSize(2));
+        assertThat(changes.get(0).getId(), is(equalTo(2L)));
+        assertThat(changes.get(1).getId(), is(equalTo(1L)));
+        assertThat(changes.get(1).getType(), is(equalTo(EquipmentChangeType.CREATED)));
+        assertThat(changes.get(1).getRevision(), is(equalTo(equipmentChangeLog.current())));
+    }
+
+    @Test
+    void whenChangesAreListedFromTheirLastRevisionThenNothingIsReturned() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.DELETED, equipment(1L, "140150001"));
+
+        // then
+        assertThat(equipmentChangeLog.changesSince(equipmentChangeLog.current(), 10), is(empty()));
+    }
+
+    @Test
+    void whenOlderChangesWereDroppedThenAResetIsRequired() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(2);
+        String initialRevision = equipmentChangeLog.current();
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(1L, "140150001"));
+        String firstRevision = equipmentChangeLog.current();
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(2L, "140150002"));
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(3L, "140150003"));
+
+        // then
+        assertThat(equipmentChangeLog.changesSince(initialRevision, 10), is(nullValue()));
+        assertThat(equipmentChangeLog.changesSince(firstRevision, 10), hasSize(2));
+    }
+
+    @Test
+    void whenTheRevisionComesFromAnotherInstanceThenAResetIsRequired() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(1L, "140150001"));
+
+        // then
+        assertThat(equipmentChangeLog.changesSince("0-0", 10), is(nullValue()));
+        assertThat(equipmentChangeLog.changesSince(null, 10), is(nullValue()));
+    }
+
+    @Test
+    void whenTheLogIsResetThenEarlierRevisionsRequireAReload() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, equipment(1L, "140150001"));
+        String recordedRevision = equipmentChangeLog.current();
+
+        // when
+        equipmentChangeLog.reset();
+
+        // then
+        assertThat(equipmentChangeLog.current(), is(not(equalTo(recordedRevision))));
+        assertThat(equipmentChangeLog.changesSince(recordedRevision, 10), is(nullValue()));
+        assertThat(equipmentChangeLog.changesSince(equipmentChangeLog.current(), 10), is(empty()));
+    }
+
+    @Test
+    void whenAChangeIsRecordedThenTheListenersGetItWithTheEquipmentState() {
+        // given
+        EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+        List<EquipmentChangeDTO> publishedChanges = new ArrayList<>();
+        equipmentChangeLog.addListener(publishedChanges::add);
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.UPDATED, equipment(1L, "140150001"));
+        equipmentChangeLog.record(EquipmentChangeType.DELETED, equipment(1L, "140150001"));
+
+        // then
+        assertThat(publishedChanges, hasSize(2));
+        assertThat(publishedChanges.get(0).getEquipment().getNp(), is(equalTo("140150001")));
+        assertThat(publishedChanges.get(1).getEquipment(), is(nullValue()));
+        assertThat(publishedChanges.get(1).getRevision(), is(equalTo(equipmentChangeLog.current())));
+    }
+
+    private static EquipmentDTO equipment(Long id, String np) {
+        return EquipmentDTO.builder().id(id).np(np).build();
+    }
+}
@@ -0,0 +1,132 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EquipmentReadReplicaTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(100);
+
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    private EquipmentReadReplica equipmentReadReplica;
+
+    private final EquipmentDTO motorPump = EquipmentDTOBuilder.builder().id(1L).np("140150002").version(0L)
+            .updatedAt(Instant.parse("2024-05-01T10:15:30.123456Z")).build().toEquipmentDTO();
+    private final EquipmentDTO pump = EquipmentDTOBuilder.builder().id(2L).np("140470001").type(EquipmentType.PUMP).version(0L).build().toEquipmentDTO();
+    private final EquipmentDTO otherMotorPump = EquipmentDTOBuilder.builder().id(3L).np("140150001").brand("KSB").version(0L).build().toEquipmentDTO();
+    private final EquipmentDTO legacy = EquipmentDTOBuilder.builder().id(4L).np("LEGACY-01").version(0L).build().toEquipmentDTO();
+
+    @BeforeEach
+    void setUp() {
+        equipmentReadReplica = new EquipmentReadReplica(equipmentRepository, entityManager, transactionTemplate, equipmentChangeLog,
+                new SimpleMeterRegistry(), true);
+    }
+
+    @Test
+    void whenReplicaIsRefreshedThenEveryEquipmentIsFoundByNp() {
+        // when
+        refresh(motorPump, pump, otherMotorPump, legacy);
+
+        // then
+        assertThat(equipmentReadReplica.isServing(), is(true));
+        assertThat(equipmentReadReplica.findByNp(motorPump.getNp()), is(equalTo(Optional.of(motorPump))));
+        assertThat(equipmentReadReplica.findByNp(pump.getNp()), is(equalTo(Optional.of(pump))));
+        assertThat(equipmentReadReplica.findByNp(otherMotorPump.getNp()), is(equalTo(Optional.of(otherMotorPump))));
+        assertThat(equipmentReadReplica.findByNp(legacy.getNp()), is(equalTo(Optional.of(legacy))));
+        assertThat(equipmentReadReplica.findByNp("140150003"), is(equalTo(Optional.empty())));
+        verify(entityManager, times(4)).detach(any());
+    }
+
+    @Test
+    void whenTypeIsFilteredThenEquipmentsAreReturnedInIdOrderAfterTheCursor() {
+        // when
+        refresh(motorPump, pump, otherMotorPump, legacy);
+
+        // then
+        assertThat(ids(equipmentReadReplica.findByType(EquipmentType.MOTORPUMP, 0L, 10)), contains(1L, 3L, 4L));
+        assertThat(ids(equipmentReadReplica.findByType(EquipmentType.MOTORPUMP, 1L, 10)), contains(3L, 4L));
+        assertThat(ids(equipmentReadReplica.findByType(EquipmentType.MOTORPUMP, 0L, 1)), contains(1L));
+        assertThat(ids(equipmentReadReplica.findByType(EquipmentType.MOTOR, 0L, 10)), is(empty()));
+    }
+
+    @Test
+    void whenChangesAreRecordedAfterTheRefreshThenTheyShadowTheColumns() {
+        // given
+        EquipmentDTO updatedMotorPump = motorPump.toBuilder().quantity(20).version(1L).build();
+        EquipmentDTO createdMotorPump = EquipmentDTOBuilder.builder().id(5L).np("140150005").version(0L).build().toEquipmentDTO();
+
+        // when
+        refresh(motorPump, pump, otherMotorPump);
+        equipmentChangeLog.record(EquipmentChangeType.UPDATED, updatedMotorPump);
+        equipmentChangeLog.record(EquipmentChangeType.DELETED, otherMotorPump);
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, createdMotorPump);
+
+        // then
+        assertThat(equipmentReadReplica.findByNp(motorPump.getNp()), is(equalTo(Optional.of(updatedMotorPump))));
+        assertThat(equipmentReadReplica.findByNp(otherMotorPump.getNp()), is(equalTo(Optional.empty())));
+        assertThat(equipmentReadReplica.findByNp(createdMotorPump.getNp()), is(equalTo(Optional.of(createdMotorPump))));
+        assertThat(equipmentReadReplica.findByType(EquipmentType.MOTORPUMP, 0L, 10), contains(updatedMotorPump, createdMotorPump));
+    }
+
+    @Test
+    void whenReturnedEquipmentIsChangedThenTheReplicaIsNotChanged() {
+        // when
+        refresh(motorPump);
+        equipmentChangeLog.record(EquipmentChangeType.UPDATED, motorPump);
+        equipmentReadReplica.findByNp(motorPump.getNp()).get().setQuantity(0);
+
+        // then
+        assertThat(equipmentReadReplica.findByNp(motorPump.getNp()).get().getQuantity(), is(equalTo(motorPump.getQuantity())));
+    }
+
+    private void refresh(EquipmentDTO... equipments) {
+        List<Equipment> rows = Stream.of(equipments)
+                .map(equipmentMapper::toModel)
+                .sorted((first, second) -> first.getId().compareTo(second.getId()))
+                .collect(Collectors.toList());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(equipmentRepository.streamAll()).thenReturn(rows.stream());
+        equipmentReadReplica.refresh();
+    }
+
+    private static List<Long> ids(List<EquipmentDTO> equipments) {
+        return equipments.stream()
+                .map(EquipmentDTO::getId)
+                .collect(Collectors.toList());
+    }
+}
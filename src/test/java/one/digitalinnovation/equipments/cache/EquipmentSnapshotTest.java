@@ -0,0 +1,86 @@
+package one.digitalinnovation.equipments.cache;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EquipmentSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenSnapshotIsCommittedThenEveryEquipmentIsReadBackByNp() throws IOException {
+        // given
+        Path path = directory.resolve("equipments.snapshot");
+        EquipmentDTO pump = EquipmentDTOBuilder.builder().id(7L).np("140470001").type(EquipmentType.PUMP)
+                .version(2L).updatedAt(Instant.parse("2024-05-01T10:15:30.123456Z")).build().toEquipmentDTO();
+        EquipmentDTO motorPump = EquipmentDTOBuilder.builder().id(3L).np("140150002").brand("KSB").build().toEquipmentDTO();
+        EquipmentDTO otherMotorPump = EquipmentDTOBuilder.builder().id(5L).np("140150003").build().toEquipmentDTO();
+
+        // when
+        try (EquipmentSnapshot.Writer writer = new EquipmentSnapshot.Writer(path)) {
+            writer.add(motorPump);
+            writer.add(otherMotorPump);
+            writer.add(pump);
+            writer.commit();
+        }
+
+        // then
+        EquipmentSnapshot snapshot = EquipmentSnapshot.open(path);
+        motorPump.setVersion(0L);
+        otherMotorPump.setVersion(0L);
+        assertThat(snapshot.size(), is(equalTo(3)));
+        assertThat(snapshot.findByNp("140470001"), is(equalTo(pump)));
+        assertThat(snapshot.findByNp("140150002"), is(equalTo(motorPump)));
+        assertThat(snapshot.findByNp("140150004"), is(nullValue()));
+        assertThat(snapshot.findByNp("NP 1"), is(nullValue()));
+        assertThat(snapshot.listAll(), contains(motorPump, otherMotorPump, pump));
+    }
+
+    @Test
+    void whenEquipmentsAreAddedOutOfNpOrderThenAnExceptionIsThrown() throws IOException {
+        try (EquipmentSnapshot.Writer writer = new EquipmentSnapshot.Writer(directory.resolve("equipments.snapshot"))) {
+            writer.add(EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO());
+
+            assertThrows(IllegalArgumentException.class, () -> writer.add(EquipmentDTOBuilder.builder().np("140150001").build().toEquipmentDTO()));
+        }
+    }
+
+    @Test
+    void whenSnapshotIsNotCommittedThenNoFileIsLeftBehind() throws IOException {
+        // given
+        Path path = directory.resolve("equipments.snapshot");
+
+        // when
+        try (EquipmentSnapshot.Writer writer = new EquipmentSnapshot.Writer(path)) {
+            writer.add(EquipmentDTOBuilder.builder().build().toEquipmentDTO());
+        }
+
+        // then
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count(), is(equalTo(0L)));
+        }
+    }
+
+    @Test
+    void whenFileIsNotASnapshotThenItIsRejected() throws IOException {
+        // given
+        Path path = Files.write(directory.resolve("equipments.snapshot"), new byte[EquipmentSnapshot.HEADER_BYTES]);
+
+        // then
+        assertThrows(IOException.class, () -> EquipmentSnapshot.open(path));
+    }
+}
@@ -0,0 +1,143 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.dto.EquipmentCountDTO;
+import one.digitalinnovation.equipments.dto.EquipmentStatsDTO;
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EquipmentStatsCounterTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private EquipmentStatsCounter equipmentStatsCounter;
+
+    @BeforeEach
+    void setUp() {
+        equipmentStatsCounter = new EquipmentStatsCounter(equipmentRepository, meterRegistry);
+    }
+
+    @Test
+    void whenCountsAreLoadedThenTotalsAreDerivedByTypeAndBrand() {
+        // given
+        when(equipmentRepository.countByBrandAndType()).thenReturn(Arrays.asList(
+                new EquipmentCountDTO("FLYGT", EquipmentType.MOTORPUMP, 3L),
+                new EquipmentCountDTO("WEG", EquipmentType.MOTOR, 2L),
+                new EquipmentCountDTO("WEG", EquipmentType.MOTORPUMP, 1L)));
+
+        // when
+        equipmentStatsCounter.afterSingletonsInstantiated();
+        EquipmentStatsDTO stats = equipmentStatsCounter.stats();
+
+        // then
+        assertThat(stats.getTotal(), is(equalTo(6L)));
+        assertThat(stats.getByType().keySet(), Matchers.contains(EquipmentType.values()));
+        assertThat(stats.getByType().get(EquipmentType.MOTORPUMP), is(equalTo(4L)));
+        assertThat(stats.getByType().get(EquipmentType.MOTOR), is(equalTo(2L)));
+        assertThat(stats.getByType().get(EquipmentType.PUMP), is(equalTo(0L)));
+        assertThat(stats.getByBrand().keySet(), Matchers.contains("FLYGT", "WEG"));
+        assertThat(stats.getByBrand(), hasEntry("WEG", 3L));
+        assertThat(stats.getByBrandAndType().get("WEG").get(EquipmentType.MOTOR), is(equalTo(2L)));
+    }
+
+    @Test
+    void whenEquipmentsAreAddedAndRemovedThenCountsFollowAndEmptyBrandsAreDropped() {
+        // when
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        equipmentStatsCounter.add("WEG", EquipmentType.MOTOR);
+        equipmentStatsCounter.remove("WEG", EquipmentType.MOTOR);
+        EquipmentStatsDTO stats = equipmentStatsCounter.stats();
+
+        // then
+        assertThat(stats.getTotal(), is(equalTo(2L)));
+        assertThat(stats.getByBrand().keySet(), Matchers.contains("KSB"));
+        assertThat(stats.getByType().get(EquipmentType.PUMP), is(equalTo(2L)));
+        assertThat(stats.getByType().get(EquipmentType.MOTOR), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenCountsMatchTheRecountThenNoDriftIsReported() {
+        // given
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        when(equipmentRepository.countByBrandAndType()).thenReturn(Collections.singletonList(new EquipmentCountDTO("KSB", EquipmentType.PUMP, 1L)));
+
+        // when
+        boolean verified = equipmentStatsCounter.verify();
+
+        // then
+        assertThat(verified, is(true));
+        assertThat(meterRegistry.get("equipments.stats.drift").counter().count(), is(equalTo(0.0)));
+    }
+
+    @Test
+    void whenCountsDriftFromTheRecountThenTheRecountIsKept() {
+        // given
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        when(equipmentRepository.countByBrandAndType()).thenReturn(Collections.singletonList(new EquipmentCountDTO("WEG", EquipmentType.MOTOR, 5L)));
+
+        // when
+        boolean verified = equipmentStatsCounter.verify();
+        EquipmentStatsDTO stats = equipmentStatsCounter.stats();
+
+        // then
+        assertThat(verified, is(false));
+        assertThat(meterRegistry.get("equipments.stats.drift").counter().count(), is(equalTo(1.0)));
+        assertThat(stats.getTotal(), is(equalTo(5L)));
+        assertThat(stats.getByBrand().keySet(), Matchers.contains("WEG"));
+    }
+
+    @Test
+    void whenAWriteIsUnderWayThenTheRecountIsSkippedAndTheWriteIsCountedOnce() {
+        // given
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        equipmentStatsCounter.beginWrite();
+
+        // when
+        boolean verified = equipmentStatsCounter.verify();
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        equipmentStatsCounter.endWrite();
+
+        // then
+        assertThat(verified, is(true));
+        verify(equipmentRepository, never()).countByBrandAndType();
+        assertThat(equipmentStatsCounter.stats().getTotal(), is(equalTo(2L)));
+    }
+
+    @Test
+    void whenAWriteBeginsDuringTheRecountThenNoDriftIsReported() {
+        // given
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        when(equipmentRepository.countByBrandAndType()).thenAnswer(invocation -> {
+            equipmentStatsCounter.beginWrite();
+            return Collections.singletonList(new EquipmentCountDTO("KSB", EquipmentType.PUMP, 2L));
+        });
+
+        // when
+        boolean verified = equipmentStatsCounter.verify();
+        equipmentStatsCounter.add("KSB", EquipmentType.PUMP);
+        equipmentStatsCounter.endWrite();
+
+        // then
+        assertThat(verified, is(true));
+        assertThat(meterRegistry.get("equipments.stats.drift").counter().count(), is(equalTo(0.0)));
+        assertThat(equipmentStatsCounter.stats().getTotal(), is(equalTo(2L)));
+    }
+}
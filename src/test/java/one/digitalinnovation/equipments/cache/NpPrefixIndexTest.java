@@ -0,0 +1,89 @@
+package one.digitalinnovation.equipments.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NpPrefixIndexTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private NpPrefixIndex npPrefixIndex;
+
+    @BeforeEach
+    void setUp() {
+        npPrefixIndex = new NpPrefixIndex(equipmentRepository, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenIndexIsLoadedThenEveryRegisteredNpIsSuggested() {
+        // when
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(equipmentRepository.streamAllNps()).thenReturn(Stream.of("140152830", "140470001", "LEGACY-01"));
+
+        // then
+        npPrefixIndex.afterSingletonsInstantiated();
+
+        assertThat(npPrefixIndex.size(), is(equalTo(3)));
+        assertThat(npPrefixIndex.suggest("", 10), contains("140152830", "140470001", "LEGACY-01"));
+    }
+
+    @Test
+    void whenPrefixSpansSeveralTypeCodesThenSuggestionsAreSortedAndLimited() {
+        // given
+        npPrefixIndex.add("140479999");
+        npPrefixIndex.add("140430001");
+        npPrefixIndex.add("140430500");
+        npPrefixIndex.add("1404-OLD");
+
+        // then
+        assertThat(npPrefixIndex.suggest("1404", 10), contains("1404-OLD", "140430001", "140430500", "140479999"));
+        assertThat(npPrefixIndex.suggest("1404", 2), contains("1404-OLD", "140430001"));
+        assertThat(npPrefixIndex.suggest("1404305", 10), Matchers.contains("140430500"));
+        assertThat(npPrefixIndex.suggest("140430", 10), contains("140430001", "140430500"));
+    }
+
+    @Test
+    void whenNpIsRemovedThenItIsNoLongerSuggested() {
+        // given
+        npPrefixIndex.add("140152830");
+        npPrefixIndex.add("140152830");
+        npPrefixIndex.add("14015ABCD");
+
+        // when
+        npPrefixIndex.remove("140152830");
+        npPrefixIndex.remove("14015ABCD");
+
+        // then
+        assertThat(npPrefixIndex.size(), is(equalTo(0)));
+        assertThat(npPrefixIndex.suggest("14015", 10), is(empty()));
+    }
+
+    @Test
+    void whenPrefixDoesNotMatchAnyTypeCodeThenNothingIsSuggested() {
+        // given
+        npPrefixIndex.add("140152830");
+
+        // then
+        assertThat(npPrefixIndex.suggest("14016", 10), is(empty()));
+        assertThat(npPrefixIndex.suggest("1401528301", 10), is(empty()));
+    }
+}
@@ -0,0 +1,70 @@
+package one.digitalinnovation.equipments.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LoadSheddingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void whenTheLimitIsReachedThenFurtherRequestsAreShedWithRetryAfter() throws Exception {
+        // given
+        LoadSheddingFilter loadSheddingFilter = new LoadSheddingFilter(meterRegistry, 1, 1, 1, Duration.ofMinutes(1));
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+
+        // when
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        loadSheddingFilter.doFilter(request(), served, (servletRequest, servletResponse) ->
+                loadSheddingFilter.doFilter(request(), shed, new MockFilterChain()));
+
+        // then
+        assertThat(served.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(shed.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER), is(equalTo(LoadSheddingFilter.RETRY_AFTER_SECONDS)));
+        assertThat(meterRegistry.get(RateLimitFilter.REJECTED_METRIC).tag("reason", "overloaded").counter().count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.get("equipments.http.concurrency.in-flight").gauge().value(), is(equalTo(0.0)));
+    }
+
+    @Test
+    void whenRequestsFinishWithinTheTargetLatencyThenTheLimitGrows() throws Exception {
+        // given
+        LoadSheddingFilter loadSheddingFilter = new LoadSheddingFilter(meterRegistry, 2, 1, 3, Duration.ofMinutes(1));
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            loadSheddingFilter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        // then
+        assertThat(loadSheddingFilter.limit(), is(equalTo(3)));
+    }
+
+    @Test
+    void whenRequestsTakeLongerThanTheTargetLatencyThenTheLimitShrinks() throws Exception {
+        // given
+        LoadSheddingFilter loadSheddingFilter = new LoadSheddingFilter(meterRegistry, 20, 4, 20, Duration.ZERO);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            loadSheddingFilter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        // then
+        assertThat(loadSheddingFilter.limit(), is(equalTo(4)));
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/equipments");
+    }
+}
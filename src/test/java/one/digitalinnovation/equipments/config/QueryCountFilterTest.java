@@ -0,0 +1,42 @@
+package one.digitalinnovation.equipments.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final QueryCountFilter queryCountFilter = new QueryCountFilter(meterRegistry);
+
+    private final QueryCountInspector queryCountInspector = new QueryCountInspector();
+
+    @Test
+    void whenARequestIssuesStatementsThenTheyAreRecordedByUriTemplate() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/equipments/140150001");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/equipments/{np}");
+        queryCountInspector.inspect("select 1");
+
+        // when
+        queryCountFilter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            queryCountInspector.inspect("select 2");
+            queryCountInspector.inspect("select 3");
+        });
+
+        // then
+        DistributionSummary queries = meterRegistry.get(QueryCountFilter.METRIC_NAME)
+                .tag("uri", "/api/v1/equipments/{np}")
+                .summary();
+        assertThat(queries.count(), is(equalTo(1L)));
+        assertThat(queries.totalAmount(), is(equalTo(2.0)));
+        assertThat(QueryCountInspector.count(), is(equalTo(0)));
+    }
+}
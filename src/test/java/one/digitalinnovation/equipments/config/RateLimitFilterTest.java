@@ -0,0 +1,85 @@
+package one.digitalinnovation.equipments.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RateLimitFilterTest {
+
+    private static final String CLIENT_HEADER = "X-Forwarded-For";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // two requests, then one every 1000 seconds
+    private final RateLimitFilter rateLimitFilter = new RateLimitFilter(meterRegistry, 0.001, 2, CLIENT_HEADER, 1000);
+
+    @Test
+    void whenAClientGoesPastItsBurstThenItIsToldWhenToRetry() throws Exception {
+        // when
+        MockHttpServletResponse first = send("GET", "/api/v1/equipments/140150001", "10.0.0.1");
+        MockHttpServletResponse second = send("GET", "/api/v1/equipments/140150002", "10.0.0.1");
+        MockHttpServletResponse third = send("GET", "/api/v1/equipments/140150003", "10.0.0.254, 10.0.0.1");
+
+        // then
+        assertThat(first.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(second.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(third.getStatus(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS.value())));
+        assertThat(Long.parseLong(third.getHeader(HttpHeaders.RETRY_AFTER)), is(both(greaterThan(0L)).and(lessThanOrEqualTo(1000L))));
+        assertThat(meterRegistry.get(RateLimitFilter.REJECTED_METRIC).tag("reason", "rate-limited").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenBucketsAreEmptyThenOtherClientsAndEndpointsAreStillServed() throws Exception {
+        // given
+        send("GET", "/api/v1/equipments/140150001", "10.0.0.1");
+        send("GET", "/api/v1/equipments/140150001", "10.0.0.1");
+
+        // when
+        MockHttpServletResponse otherClient = send("GET", "/api/v1/equipments/140150001", "10.0.0.2");
+        MockHttpServletResponse otherEndpoint = send("PATCH", "/api/v1/equipments/1/increment", "10.0.0.1");
+
+        // then
+        assertThat(otherClient.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(otherEndpoint.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    }
+
+    @Test
+    void whenAClientSpoofsTheForwardedAddressThenItStillHasOneBucket() throws Exception {
+        // when
+        MockHttpServletResponse first = send("GET", "/api/v1/equipments/140150001", "192.0.2.1, 10.0.0.1");
+        MockHttpServletResponse second = send("GET", "/api/v1/equipments/140150001", "192.0.2.2, 10.0.0.1");
+        MockHttpServletResponse third = send("GET", "/api/v1/equipments/140150001", "192.0.2.3, 10.0.0.1");
+
+        // then
+        assertThat(first.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(second.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(third.getStatus(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS.value())));
+    }
+
+    @Test
+    void whenPathsHoldIdsOrNpsThenTheyShareTheirEndpoint() {
+        // given
+        MockHttpServletRequest byNp = new MockHttpServletRequest("GET", "/api/v1/equipments/140150001");
+        MockHttpServletRequest byOtherNp = new MockHttpServletRequest("GET", "/api/v1/equipments/140470001");
+        MockHttpServletRequest suggest = new MockHttpServletRequest("GET", "/api/v1/equipments/suggest");
+
+        // then
+        assertThat(RateLimitFilter.endpoint(byNp), is(equalTo(RateLimitFilter.endpoint(byOtherNp))));
+        assertThat(RateLimitFilter.endpoint(suggest), is(not(equalTo(RateLimitFilter.endpoint(byNp)))));
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String client) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader(CLIENT_HEADER, client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package one.digitalinnovation.equipments.config;
+
+import one.digitalinnovation.equipments.service.EquipmentSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SnapshotRestoreFilterTest {
+
+    @Mock
+    private EquipmentSnapshotService equipmentSnapshotService;
+
+    @Test
+    void whenRestoringThenOnlyTheReadsServedFromTheSnapshotGoThrough() throws Exception {
+        // given
+        when(equipmentSnapshotService.isRestoring()).thenReturn(true);
+        SnapshotRestoreFilter snapshotRestoreFilter = new SnapshotRestoreFilter(equipmentSnapshotService);
+        MockHttpServletRequest page = new MockHttpServletRequest("GET", "/api/v1/equipments");
+        page.setQueryString("size=10");
+        MockHttpServletRequest ndjson = new MockHttpServletRequest("GET", "/api/v1/equipments");
+        ndjson.addHeader(HttpHeaders.ACCEPT, "application/x-ndjson");
+
+        // when
+        MockHttpServletResponse byNp = send(snapshotRestoreFilter, new MockHttpServletRequest("GET", "/api/v1/equipments/140150001"));
+        MockHttpServletResponse listAll = send(snapshotRestoreFilter, new MockHttpServletRequest("GET", "/api/v1/equipments"));
+        MockHttpServletResponse listPage = send(snapshotRestoreFilter, page);
+        MockHttpServletResponse streamed = send(snapshotRestoreFilter, ndjson);
+        MockHttpServletResponse stats = send(snapshotRestoreFilter, new MockHttpServletRequest("GET", "/api/v1/equipments/stats"));
+        MockHttpServletResponse created = send(snapshotRestoreFilter, new MockHttpServletRequest("POST", "/api/v1/equipments"));
+
+        // then
+        assertThat(byNp.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(listAll.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(listPage.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(streamed.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(stats.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(created.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(created.getHeader(HttpHeaders.RETRY_AFTER), is(equalTo(SnapshotRestoreFilter.RETRY_AFTER_SECONDS)));
+    }
+
+    @Test
+    void whenNotRestoringThenEveryRequestGoesThrough() throws Exception {
+        // given
+        when(equipmentSnapshotService.isRestoring()).thenReturn(false);
+        SnapshotRestoreFilter snapshotRestoreFilter = new SnapshotRestoreFilter(equipmentSnapshotService);
+        MockHttpServletRequest streamJson = new MockHttpServletRequest("GET", "/api/v1/equipments");
+        streamJson.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_STREAM_JSON_VALUE);
+
+        // when
+        MockHttpServletResponse streamed = send(snapshotRestoreFilter, streamJson);
+        MockHttpServletResponse created = send(snapshotRestoreFilter, new MockHttpServletRequest("POST", "/api/v1/equipments"));
+
+        // then
+        assertThat(streamed.getStatus(), is(equalTo(HttpStatus.OK.value())));
+        assertThat(created.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    }
+
+    private static MockHttpServletResponse send(SnapshotRestoreFilter snapshotRestoreFilter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        snapshotRestoreFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
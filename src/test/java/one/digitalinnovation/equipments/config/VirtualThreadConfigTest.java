@@ -0,0 +1,60 @@
+package one.digitalinnovation.equipments.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadConfigTest {
+
+    private static final int VIRTUAL_THREADS_FEATURE = 21;
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    void whenTheExecutionModeIsPlatformThenTheTomcatWorkersAreKept() {
+        contextRunner.withPropertyValues("equipments.execution.mode=platform").run(context -> {
+            // then
+            assertThat(context.getStartupFailure(), is(nullValue()));
+            assertThat(context.getBeansOfType(ExecutorService.class).keySet(), is(empty()));
+            assertThat(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).keySet(), is(empty()));
+        });
+    }
+
+    @Test
+    void whenTheExecutionModeIsVirtualThenTasksRunOnVirtualThreads() {
+        // given
+        assumeTrue(Runtime.version().feature() >= VIRTUAL_THREADS_FEATURE);
+
+        contextRunner.withPropertyValues("equipments.execution.mode=virtual").run(context -> {
+            // when
+            Thread thread = context.getBean(ExecutorService.class).submit(Thread::currentThread).get();
+
+            // then
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread), is(equalTo(true)));
+            assertThat(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).keySet(), hasSize(1));
+        });
+    }
+
+    @Test
+    void whenTheExecutionModeIsVirtualBeforeJava21ThenTheContextFailsWithTheRequiredRuntime() {
+        // given
+        assumeTrue(Runtime.version().feature() < VIRTUAL_THREADS_FEATURE);
+
+        contextRunner.withPropertyValues("equipments.execution.mode=virtual").run(context -> {
+            // then
+            Throwable failure = context.getStartupFailure();
+            while (failure.getCause() != null && !(failure instanceof IllegalStateException)) {
+                failure = failure.getCause();
+            }
+            assertThat(failure, is(instanceOf(IllegalStateException.class)));
+            assertThat(failure.getMessage(), containsString("Java 21"));
+        });
+    }
+}
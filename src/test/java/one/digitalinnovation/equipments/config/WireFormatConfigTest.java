@@ -0,0 +1,74 @@
+package one.digitalinnovation.equipments.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static one.digitalinnovation.equipments.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WireFormatConfigTest {
+
+    private final WireFormatConfig wireFormatConfig = new WireFormatConfig();
+
+    @Test
+    void whenEquipmentIsWrittenAsCborThenTheTypeIsItsOrdinalAndItReadsBack() throws IOException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        MappingJackson2CborHttpMessageConverter converter = wireFormatConfig.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // when
+        converter.write(equipmentDTO, MediaType.APPLICATION_CBOR, outputMessage);
+        byte[] cbor = outputMessage.getBodyAsBytes();
+
+        // then
+        JsonNode node = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        assertThat(node.get("type").isInt(), is(true));
+        assertThat(node.get("type").intValue(), is(equalTo(equipmentDTO.getType().ordinal())));
+        assertThat(cbor.length, is(lessThan(asJsonString(equipmentDTO).length())));
+        assertThat(converter.read(EquipmentDTO.class, new MockHttpInputMessage(cbor)), is(equalTo(equipmentDTO)));
+    }
+
+    @Test
+    void whenEquipmentIsWrittenAsSmileThenItReadsBack() throws IOException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        MappingJackson2SmileHttpMessageConverter converter = wireFormatConfig.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // when
+        converter.write(equipmentDTO, null, outputMessage);
+
+        // then
+        assertThat(converter.read(EquipmentDTO.class, new MockHttpInputMessage(outputMessage.getBodyAsBytes())), is(equalTo(equipmentDTO)));
+    }
+
+    @Test
+    void whenAnApiRequestIsFilteredThenTheResponseVariesByAccept() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        new VaryAcceptFilter().doFilter(new MockHttpServletRequest("GET", "/api/v1/equipments"), response, new MockFilterChain());
+
+        // then
+        assertThat(response.getHeader(HttpHeaders.VARY), is(equalTo(HttpHeaders.ACCEPT)));
+    }
+}
@@ -1,32 +1,76 @@
 package one.digitalinnovation.equipments.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentChangeDTO;
+import one.digitalinnovation.equipments.dto.EquipmentChangesDTO;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteBatchDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportRowDTO;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import one.digitalinnovation.equipments.enums.EquipmentExportFormat;
+import one.digitalinnovation.equipments.enums.EquipmentImportStatus;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
 import one.digitalinnovation.equipments.dto.QuantityDTO;
 import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.service.EquipmentEventBroadcaster;
+import one.digitalinnovation.equipments.service.EquipmentExportService;
+import one.digitalinnovation.equipments.service.EquipmentImportService;
 import one.digitalinnovation.equipments.service.EquipmentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
+import reactor.core.publisher.Flux;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static one.digitalinnovation.equipments.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +87,18 @@ public class EquipmentControllerTest {
     @Mock
     private EquipmentService equipmentService;
 
+    @Mock
+    private EquipmentImportService equipmentImportService;
+
+    @Mock
+    private EquipmentExportService equipmentExportService;
+
+    @Mock
+    private EquipmentEventBroadcaster equipmentEventBroadcaster;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private EquipmentController equipmentController;
 
@@ -85,6 +141,177 @@ public class EquipmentControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void whenPOSTIsCalledWithNegativeQuantityThenAnErrorIsReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        equipmentDTO.setQuantity(-1);
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(equipmentDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPOSTIsCalledWithQuantityGreaterThanMaxThenAnErrorIsReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        equipmentDTO.setQuantity(equipmentDTO.getMax() + 1);
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(equipmentDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPOSTBatchIsCalledWithNdjsonThenEveryRowIsImported() throws Exception {
+        // given
+        EquipmentDTO firstEquipmentDTO = EquipmentDTOBuilder.builder().np("140150001").build().toEquipmentDTO();
+        EquipmentDTO secondEquipmentDTO = EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO();
+        List<EquipmentDTO> importedEquipments = new ArrayList<>();
+
+        // when
+        when(equipmentImportService.importEquipments(any())).thenAnswer(invocation -> {
+            Iterator<EquipmentDTO> equipments = invocation.getArgument(0);
+            equipments.forEachRemaining(importedEquipments::add);
+            return new EquipmentImportResultDTO(1, 0, Collections.singletonList(
+                    new EquipmentImportRowDTO(0, firstEquipmentDTO.getNp(), EquipmentImportStatus.CREATED, 1L, null)));
+        });
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH + "/batch")
+                .contentType(EquipmentController.APPLICATION_NDJSON_VALUE)
+                .content(asJsonString(firstEquipmentDTO) + "\n" + asJsonString(secondEquipmentDTO) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rows[0].status", is(EquipmentImportStatus.CREATED.toString())));
+
+        assertThat(importedEquipments, contains(firstEquipmentDTO, secondEquipmentDTO));
+    }
+
+    @Test
+    void whenPOSTBatchIsCalledWithAJsonArrayThenEveryRowIsImported() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        List<EquipmentDTO> importedEquipments = new ArrayList<>();
+
+        // when
+        when(equipmentImportService.importEquipments(any())).thenAnswer(invocation -> {
+            Iterator<EquipmentDTO> equipments = invocation.getArgument(0);
+            equipments.forEachRemaining(importedEquipments::add);
+            return new EquipmentImportResultDTO(1, 0, Collections.emptyList());
+        });
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(Collections.singletonList(equipmentDTO))))
+                .andExpect(status().isOk());
+
+        assertThat(importedEquipments, contains(equipmentDTO));
+    }
+
+    @Test
+    void whenPOSTImportIsCalledWithGzippedCsvThenTheDecompressedLinesAreImported() throws Exception {
+        // given
+        String csv = ",140150001,FLYGT,NP 3206,MOTORPUMP,50,10,,\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped)) {
+            gzipStream.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> importedLines = new ArrayList<>();
+
+        //when
+        when(equipmentImportService.importCsv(any())).thenAnswer(invocation -> {
+            Reader reader = invocation.getArgument(0);
+            importedLines.addAll(new BufferedReader(reader).lines().collect(Collectors.toList()));
+            return new EquipmentImportResultDTO(1, 0, Collections.emptyList());
+        });
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH + "/import")
+                .contentType(EquipmentController.TEXT_CSV_VALUE)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .content(gzipped.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)));
+
+        assertThat(importedLines, contains(csv.trim()));
+    }
+
+    @Test
+    void whenGETExportIsCalledThenTheCatalogueIsStreamedAsAnAttachment() throws Exception {
+        //when
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write("id,np\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(equipmentExportService).export(eq(EquipmentExportFormat.CSV), any());
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/export")
+                .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"equipments.csv\""))
+                .andExpect(content().string("id,np\n"));
+    }
+
+    @Test
+    void whenGETChangesIsCalledThenTheChangesSinceTheRevisionAreReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        EquipmentChangeDTO change = new EquipmentChangeDTO("r-2", EquipmentChangeType.UPDATED, equipmentDTO.getId(), equipmentDTO.getNp(), equipmentDTO);
+
+        //when
+        when(equipmentService.changesSince("r-1", null)).thenReturn(new EquipmentChangesDTO("r-2", false, Collections.singletonList(change)));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/changes")
+                .param("since", "r-1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revision", is("r-2")))
+                .andExpect(jsonPath("$.reset", is(false)))
+                .andExpect(jsonPath("$.changes[0].type", is(EquipmentChangeType.UPDATED.toString())))
+                .andExpect(jsonPath("$.changes[0].equipment.np", is(equipmentDTO.getNp())));
+    }
+
+    @Test
+    void whenGETStreamIsCalledThenAnEventStreamIsOpened() throws Exception {
+        //when
+        when(equipmentEventBroadcaster.subscribe()).thenReturn(new SseEmitter());
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(equipmentEventBroadcaster).subscribe();
+    }
+
+    @Test
+    void whenGETSuggestIsCalledThenTheMatchingNpsAreReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        //when
+        when(equipmentService.suggest("14015", null)).thenReturn(Collections.singletonList(equipmentDTO.getNp()));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/suggest")
+                .param("prefix", "14015")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]", is(equipmentDTO.getNp())));
+    }
+
     @Test
     void whenGETIsCalledWithValidNameThenOkStatusIsReturned() throws Exception {
         // given
@@ -97,11 +324,26 @@ public class EquipmentControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/" + equipmentDTO.getNp())
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name", is(equipmentDTO.getNp())))
+                .andExpect(jsonPath("$.np", is(equipmentDTO.getNp())))
                 .andExpect(jsonPath("$.brand", is(equipmentDTO.getBrand())))
                 .andExpect(jsonPath("$.type", is(equipmentDTO.getType().toString())));
     }
 
+    @Test
+    void whenGETIsCalledWithTheCurrentETagThenNotModifiedStatusIsReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().version(3L).build().toEquipmentDTO();
+
+        //when
+        when(equipmentService.findByNp(equipmentDTO.getNp())).thenReturn(equipmentDTO);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH + "/" + equipmentDTO.getNp())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void whenGETIsCalledWithoutRegisteredNameThenNotFoundStatusIsReturned() throws Exception {
         // given
@@ -128,11 +370,49 @@ public class EquipmentControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name", is(equipmentDTO.getNp())))
+                .andExpect(jsonPath("$[0].np", is(equipmentDTO.getNp())))
                 .andExpect(jsonPath("$[0].brand", is(equipmentDTO.getBrand())))
                 .andExpect(jsonPath("$[0].type", is(equipmentDTO.getType().toString())));
     }
 
+    @Test
+    void whenGETListIsCalledWithTheCurrentCatalogueETagThenNoQueryIsMade() throws Exception {
+        //when
+        when(equipmentService.catalogueRevision()).thenReturn("k9-42");
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k9-42\""))
+                .andExpect(status().isNotModified());
+        verify(equipmentService, never()).listAll();
+    }
+
+    @Test
+    void whenGETListIsCalledThenTheCatalogueETagIsReturned() throws Exception {
+        //when
+        when(equipmentService.catalogueRevision()).thenReturn("k9-43");
+        when(equipmentService.listAll()).thenReturn(Collections.emptyList());
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k9-42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k9-43\""));
+    }
+
+    @Test
+    void whenGETListIsCalledForCborThenTheCatalogueETagNamesTheEncoding() throws Exception {
+        //when
+        when(equipmentService.catalogueRevision()).thenReturn("k9-42");
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .header(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k9-42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k9-42-cbor\""));
+    }
+
     @Test
     void whenGETListWithoutEquipmentsIsCalledThenOkStatusIsReturned() throws Exception {
         // given
@@ -147,6 +427,94 @@ public class EquipmentControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGETListWithPageSizeIsCalledThenThePageAndNextCursorAreReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        EquipmentPageDTO page = new EquipmentPageDTO(Collections.singletonList(equipmentDTO), equipmentDTO.getId());
+
+        //when
+        when(equipmentService.listPage(null, 1)).thenReturn(page);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EquipmentController.NEXT_CURSOR_HEADER, equipmentDTO.getId().toString()))
+                .andExpect(jsonPath("$[0].np", is(equipmentDTO.getNp())));
+    }
+
+    @Test
+    void whenGETListWithFiltersIsCalledThenTheFilteredPageIsReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        EquipmentFilterDTO filter = EquipmentFilterDTO.builder()
+                .type(equipmentDTO.getType())
+                .brand(equipmentDTO.getBrand())
+                .model("NP 32")
+                .build();
+        EquipmentPageDTO page = new EquipmentPageDTO(Collections.singletonList(equipmentDTO), null);
+
+        //when
+        when(equipmentService.searchPage(filter, null, null)).thenReturn(page);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .param("type", equipmentDTO.getType().name())
+                .param("brand", equipmentDTO.getBrand())
+                .param("model", "NP 32")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(EquipmentController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].np", is(equipmentDTO.getNp())));
+    }
+
+    @Test
+    void whenGETListIsCalledAcceptingNdjsonThenEquipmentsAreStreamedOnePerLine() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        //when
+        doAnswer(invocation -> {
+            Consumer<EquipmentDTO> consumer = invocation.getArgument(0);
+            consumer.accept(equipmentDTO);
+            consumer.accept(equipmentDTO);
+            return null;
+        }).when(equipmentService).streamAll(any());
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .accept(EquipmentController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = asJsonString(equipmentDTO);
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    void whenGETListIsCalledAcceptingStreamJsonThenEquipmentsArePublished() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        //when
+        when(equipmentService.publishAll()).thenReturn(Flux.just(equipmentDTO, equipmentDTO));
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(EQUIPMENT_API_URL_PATH)
+                .accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = asJsonString(equipmentDTO);
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
     @Test
     void whenDELETEIsCalledWithValidIdThenNoContentStatusIsReturned() throws Exception {
         // given
@@ -161,6 +529,37 @@ public class EquipmentControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void whenDELETEIsCalledWithValidNpThenNoContentStatusIsReturned() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        //when
+        doNothing().when(equipmentService).deleteByNp(equipmentDTO.getNp());
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.delete(EQUIPMENT_API_URL_PATH + "/np/" + equipmentDTO.getNp())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void whenPOSTDeleteBatchIsCalledThenTheDeletedCountIsReturned() throws Exception {
+        // given
+        EquipmentDeleteBatchDTO batch = new EquipmentDeleteBatchDTO(Collections.singletonList(VALID_EQUIPMENT_ID), Collections.singletonList("140150001"));
+
+        //when
+        when(equipmentService.deleteAll(batch)).thenReturn(new EquipmentDeleteResultDTO(1, Collections.emptyList(), Collections.singletonList("140150001")));
+
+        // then
+        mockMvc.perform(post(EQUIPMENT_API_URL_PATH + "/delete-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(1)))
+                .andExpect(jsonPath("$.notFoundNps[0]", is("140150001")));
+    }
+
     @Test
     void whenDELETEIsCalledWithInvalidIdThenNotFoundStatusIsReturned() throws Exception {
         //when
@@ -171,4 +570,69 @@ public class EquipmentControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void whenPATCHIsCalledToIncrementStockThenOkStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        equipmentDTO.setQuantity(equipmentDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(equipmentService.increment(VALID_EQUIPMENT_ID, quantityDTO.getQuantity())).thenReturn(equipmentDTO);
+
+        mockMvc.perform(patch(EQUIPMENT_API_URL_PATH + "/" + VALID_EQUIPMENT_ID + EQUIPMENT_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.np", is(equipmentDTO.getNp())))
+                .andExpect(jsonPath("$.quantity", is(equipmentDTO.getQuantity())));
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementGreaterThanMaxThenBadRequestStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(30)
+                .build();
+
+        when(equipmentService.increment(VALID_EQUIPMENT_ID, quantityDTO.getQuantity())).thenThrow(EquipmentsExceededException.class);
+
+        mockMvc.perform(patch(EQUIPMENT_API_URL_PATH + "/" + VALID_EQUIPMENT_ID + EQUIPMENT_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHIsCalledWithInvalidIdToIncrementThenNotFoundStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(30)
+                .build();
+
+        when(equipmentService.increment(INVALID_EQUIPMENT_ID, quantityDTO.getQuantity())).thenThrow(EquipmentNotFoundException.class);
+
+        mockMvc.perform(patch(EQUIPMENT_API_URL_PATH + "/" + INVALID_EQUIPMENT_ID + EQUIPMENT_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementStockThenOkStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        equipmentDTO.setQuantity(equipmentDTO.getQuantity() - quantityDTO.getQuantity());
+
+        when(equipmentService.decrement(VALID_EQUIPMENT_ID, quantityDTO.getQuantity())).thenReturn(equipmentDTO);
+
+        mockMvc.perform(patch(EQUIPMENT_API_URL_PATH + "/" + VALID_EQUIPMENT_ID + EQUIPMENT_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity", is(equipmentDTO.getQuantity())));
+    }
 }
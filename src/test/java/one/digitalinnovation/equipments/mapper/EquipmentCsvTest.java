@@ -0,0 +1,94 @@
+package one.digitalinnovation.equipments.mapper;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EquipmentCsvTest {
+
+    @Test
+    void whenEquipmentIsWrittenThenItIsParsedBackUnchanged() throws IOException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder()
+                .brand("FLYGT, \"XYLEM\"")
+                .version(3L)
+                .updatedAt(Instant.parse("2024-05-01T10:15:30Z"))
+                .build()
+                .toEquipmentDTO();
+        StringWriter writer = new StringWriter();
+
+        // when
+        EquipmentCsv.write(equipmentDTO, writer);
+
+        // then
+        assertThat(writer.toString(), is(equalTo("1,140152830,\"FLYGT, \"\"XYLEM\"\"\",NP 3206,MOTORPUMP,50,10,3,2024-05-01T10:15:30Z\n")));
+        assertThat(EquipmentCsv.parse(writer.toString().trim()), is(equalTo(equipmentDTO)));
+    }
+
+    @Test
+    void whenOptionalFieldsAreEmptyThenTheyAreParsedAsAbsent() {
+        // when
+        EquipmentDTO equipmentDTO = EquipmentCsv.parse(",140152830,FLYGT,NP 3206,,50,10,,");
+
+        // then
+        assertThat(equipmentDTO.getId(), is(nullValue()));
+        assertThat(equipmentDTO.getType(), is(nullValue()));
+        assertThat(equipmentDTO.getUpdatedAt(), is(nullValue()));
+        assertThat(equipmentDTO.getMax(), is(equalTo(50)));
+    }
+
+    @Test
+    void whenLineIsMalformedThenAnExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> EquipmentCsv.parse("1,140152830,FLYGT"));
+        assertThrows(IllegalArgumentException.class, () -> EquipmentCsv.parse("1,140152830,FLYGT,NP 3206,MOTORPUMP,many,10,,"));
+        assertThrows(IllegalArgumentException.class, () -> EquipmentCsv.parse("1,140152830,\"FLYGT,NP 3206,MOTORPUMP,50,10,,"));
+    }
+
+    @Test
+    void whenFieldsHoldLineBreaksThenTheRecordsAreReadBackUnchanged() throws IOException {
+        // given
+        EquipmentDTO first = EquipmentDTOBuilder.builder()
+                .model("NP 3206\r\nrev. \"B\"\n")
+                .build()
+                .toEquipmentDTO();
+        EquipmentDTO second = EquipmentDTOBuilder.builder()
+                .id(2L)
+                .np("140150002")
+                .brand("KSB\rETA")
+                .build()
+                .toEquipmentDTO();
+        StringWriter writer = new StringWriter();
+        EquipmentCsv.write(first, writer);
+        EquipmentCsv.write(second, writer);
+
+        // when
+        EquipmentCsv.RecordReader records = new EquipmentCsv.RecordReader(new StringReader(writer.toString()), 8);
+        EquipmentDTO firstRead = EquipmentCsv.parse(records.readRecord());
+        EquipmentDTO secondRead = EquipmentCsv.parse(records.readRecord());
+
+        // then
+        assertThat(firstRead, is(equalTo(first)));
+        assertThat(secondRead, is(equalTo(second)));
+        assertThat(records.readRecord(), is(nullValue()));
+    }
+
+    @Test
+    void whenAQuoteIsInsideAnUnquotedFieldThenItDoesNotJoinTheNextLine() throws IOException {
+        // when
+        EquipmentCsv.RecordReader records = new EquipmentCsv.RecordReader(new StringReader("1,140152830,FLYGT 5\",x\n2,140150002"), 64);
+
+        // then
+        assertThat(records.readRecord(), is(equalTo("1,140152830,FLYGT 5\",x")));
+        assertThat(records.readRecord(), is(equalTo("2,140150002")));
+        assertThat(records.readRecord(), is(nullValue()));
+    }
+}
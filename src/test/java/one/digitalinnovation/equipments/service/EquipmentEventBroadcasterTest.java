@@ -0,0 +1,117 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EquipmentEventBroadcasterTest {
+
+    private final EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(10);
+
+    private EquipmentEventBroadcaster equipmentEventBroadcaster;
+
+    @AfterEach
+    void tearDown() {
+        equipmentEventBroadcaster.shutdown();
+    }
+
+    @Test
+    void whenClientsSubscribeThenTheyAreCountedUntilShutdown() {
+        // given
+        equipmentEventBroadcaster = new EquipmentEventBroadcaster(equipmentChangeLog, new SimpleMeterRegistry(), 16, Duration.ofMinutes(1), 1, Duration.ofSeconds(10));
+
+        // when
+        equipmentEventBroadcaster.subscribe();
+        equipmentEventBroadcaster.subscribe();
+
+        // then
+        assertThat(equipmentEventBroadcaster.subscriberCount(), is(equalTo(2)));
+        equipmentEventBroadcaster.shutdown();
+        assertThat(equipmentEventBroadcaster.subscriberCount(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenASubscriberFallsBehindItsBufferThenItIsDisconnected() {
+        // given
+        equipmentEventBroadcaster = new EquipmentEventBroadcaster(equipmentChangeLog, new SimpleMeterRegistry(), 0, Duration.ofMinutes(1), 1, Duration.ofSeconds(10));
+        equipmentEventBroadcaster.subscribe();
+
+        // when
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, EquipmentDTO.builder().id(1L).np("140150001").build());
+
+        // then
+        assertThat(equipmentEventBroadcaster.subscriberCount(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenASubscriberStallsThenItIsDisconnectedAndTheOthersStillGetTheirEvents() throws InterruptedException {
+        // given
+        equipmentEventBroadcaster = new EquipmentEventBroadcaster(equipmentChangeLog, new SimpleMeterRegistry(), 16, Duration.ofMinutes(1), 1, Duration.ofMillis(50));
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter healthy = new RecordingEmitter();
+        equipmentEventBroadcaster.subscribe(stalled);
+        equipmentEventBroadcaster.subscribe(healthy);
+        equipmentChangeLog.record(EquipmentChangeType.CREATED, EquipmentDTO.builder().id(1L).np("140150001").build());
+
+        try {
+            // when
+            assertThat(stalled.sending.await(5, TimeUnit.SECONDS), is(true));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (equipmentEventBroadcaster.subscriberCount() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+                equipmentEventBroadcaster.dropStalledSubscribers();
+            }
+            equipmentChangeLog.record(EquipmentChangeType.CREATED, EquipmentDTO.builder().id(2L).np("140150002").build());
+
+            // then
+            assertThat(equipmentEventBroadcaster.subscriberCount(), is(equalTo(1)));
+            assertThat(healthy.sent.poll(5, TimeUnit.SECONDS), is(notNullValue()));
+            assertThat(healthy.sent.poll(5, TimeUnit.SECONDS), is(notNullValue()));
+        } finally {
+            stalled.release.countDown();
+        }
+    }
+
+    // a client that stopped reading: the send never returns until the connection gives up
+    private static final class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(builder);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package one.digitalinnovation.equipments.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentExportFormat;
+import one.digitalinnovation.equipments.mapper.EquipmentCsv;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest
+public class EquipmentExportServiceTest {
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    private EquipmentExportService equipmentExportService;
+
+    @BeforeEach
+    void setUp() {
+        equipmentExportService = new EquipmentExportService(jdbcTemplate, new ObjectMapper().findAndRegisterModules());
+        equipmentRepository.saveAll(Arrays.asList(equipment("140150001"), equipment("140150002")));
+        entityManager.flush();
+    }
+
+    @Test
+    void whenCatalogueIsExportedAsCsvThenEveryEquipmentIsWrittenAfterTheHeader() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        equipmentExportService.export(EquipmentExportFormat.CSV, outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(equalTo(3)));
+        assertThat(lines[0], is(equalTo(EquipmentCsv.HEADER)));
+        assertThat(EquipmentCsv.parse(lines[1]).getNp(), is(equalTo("140150001")));
+        assertThat(EquipmentCsv.parse(lines[2]).getNp(), is(equalTo("140150002")));
+    }
+
+    @Test
+    void whenCatalogueIsExportedAsNdjsonThenOneObjectIsWrittenPerLine() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        equipmentExportService.export(EquipmentExportFormat.NDJSON, outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(equalTo(2)));
+        assertThat(lines[1], containsString("\"np\":\"140150002\""));
+    }
+
+    private Equipment equipment(String np) {
+        Equipment equipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().np(np).build().toEquipmentDTO());
+        equipment.setId(null);
+        return equipment;
+    }
+}
@@ -0,0 +1,159 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentImportStatus;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import one.digitalinnovation.equipments.mapper.EquipmentCsv;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EquipmentImportServiceTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private EquipmentService equipmentService;
+
+    @Mock
+    private EquipmentStatsCounter equipmentStatsCounter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private EquipmentImportService equipmentImportService;
+
+    @Test
+    void whenNewEquipmentsAreImportedThenTheyAreSavedInOneBatch() {
+        // given
+        EquipmentDTO firstEquipmentDTO = EquipmentDTOBuilder.builder().np("140150001").build().toEquipmentDTO();
+        EquipmentDTO secondEquipmentDTO = EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findRegisteredNps(anyCollection())).thenReturn(Collections.emptyList());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // then
+        EquipmentImportResultDTO result = equipmentImportService.importEquipments(Arrays.asList(firstEquipmentDTO, secondEquipmentDTO).iterator());
+
+        assertThat(result.getCreated(), is(equalTo(2)));
+        assertThat(result.getRejected(), is(equalTo(0)));
+        verify(equipmentRepository, times(1)).findRegisteredNps(anyCollection());
+        verify(equipmentRepository, times(1)).saveAll(anyList());
+        verify(equipmentService, times(2)).afterInsert(notNull());
+    }
+
+    @Test
+    void whenRegisteredOrRepeatedNpsAreImportedThenTheyAreRejected() {
+        // given
+        EquipmentDTO registeredEquipmentDTO = EquipmentDTOBuilder.builder().np("140150001").build().toEquipmentDTO();
+        EquipmentDTO newEquipmentDTO = EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO();
+        EquipmentDTO repeatedEquipmentDTO = EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findRegisteredNps(anyCollection())).thenReturn(Collections.singletonList(registeredEquipmentDTO.getNp()));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // then
+        EquipmentImportResultDTO result = equipmentImportService.importEquipments(
+                Arrays.asList(registeredEquipmentDTO, newEquipmentDTO, repeatedEquipmentDTO).iterator());
+
+        assertThat(result.getCreated(), is(equalTo(1)));
+        assertThat(result.getRows().get(0).getStatus(), is(equalTo(EquipmentImportStatus.ALREADY_REGISTERED)));
+        assertThat(result.getRows().get(1).getStatus(), is(equalTo(EquipmentImportStatus.CREATED)));
+        assertThat(result.getRows().get(2).getStatus(), is(equalTo(EquipmentImportStatus.ALREADY_REGISTERED)));
+    }
+
+    @Test
+    void whenEquipmentWithWrongCodeIsImportedThenItIsRejectedWithoutTouchingTheDatabase() throws EquipmentCodeException {
+        // given
+        EquipmentDTO invalidEquipmentDTO = EquipmentDTOBuilder.builder().np("140160001").build().toEquipmentDTO();
+
+        // when
+        doThrow(new EquipmentCodeException(invalidEquipmentDTO.getNp())).when(equipmentService).verifyNpCode(invalidEquipmentDTO);
+
+        // then
+        EquipmentImportResultDTO result = equipmentImportService.importEquipments(Collections.singletonList(invalidEquipmentDTO).iterator());
+
+        assertThat(result.getRejected(), is(equalTo(1)));
+        assertThat(result.getRows().get(0).getStatus(), is(equalTo(EquipmentImportStatus.INVALID)));
+        verify(equipmentRepository, never()).findRegisteredNps(anyCollection());
+        verify(equipmentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void whenCsvIsImportedThenOnlyTheRejectedRowsAreReported() throws IOException {
+        // given
+        String csv = EquipmentCsv.HEADER + "\n"
+                + ",140150001,FLYGT,NP 3206,MOTORPUMP,50,10,,\n"
+                + "\n"
+                + ",140150002,FLYGT,NP 3206,MOTORPUMP,fifty,10,,\n"
+                + ",140150003,FLYGT,NP 3206,,50,10,,\n";
+
+        // when
+        when(equipmentRepository.findRegisteredNps(anyCollection())).thenReturn(Collections.emptyList());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // then
+        EquipmentImportResultDTO result = equipmentImportService.importCsv(new StringReader(csv));
+
+        assertThat(result.getCreated(), is(equalTo(2)));
+        assertThat(result.getRejected(), is(equalTo(1)));
+        assertThat(result.getRows(), hasSize(1));
+        assertThat(result.getRows().get(0).getRow(), is(equalTo(1)));
+        assertThat(result.getRows().get(0).getStatus(), is(equalTo(EquipmentImportStatus.INVALID)));
+        verify(equipmentRepository, times(1)).saveAll(anyList());
+        verify(equipmentService, times(1)).afterInsert(argThat(equipment -> equipment.getNp().equals("140150003")));
+    }
+
+    @Test
+    void whenMoreRowsThanAChunkAreImportedThenOneDuplicateQueryIsIssuedPerChunk() {
+        // given
+        List<EquipmentDTO> equipments = new ArrayList<>();
+        for (int i = 0; i < EquipmentImportService.CHUNK_SIZE + 1; i++) {
+            equipments.add(EquipmentDTOBuilder.builder().np(String.format("14015%04d", i)).build().toEquipmentDTO());
+        }
+
+        // when
+        when(equipmentRepository.findRegisteredNps(anyCollection())).thenReturn(Collections.emptyList());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // then
+        EquipmentImportResultDTO result = equipmentImportService.importEquipments(equipments.iterator());
+
+        assertThat(result.getRows(), hasSize(equipments.size()));
+        assertThat(result.getRows().get(EquipmentImportService.CHUNK_SIZE).getRow(), is(equalTo(EquipmentImportService.CHUNK_SIZE)));
+        verify(equipmentRepository, times(2)).findRegisteredNps(anyCollection());
+    }
+}
@@ -0,0 +1,167 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentImportResultDTO;
+import one.digitalinnovation.equipments.enums.EquipmentImportStatus;
+import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+public class EquipmentServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 200;
+
+    @Autowired
+    private EquipmentService equipmentService;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private EquipmentStatsCounter equipmentStatsCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        equipmentRepository.deleteAll();
+    }
+
+    @Test
+    void whenSameNpIsCreatedConcurrentlyThenOnlyOneEquipmentIsRegistered() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < ATTEMPTS; i++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    equipmentService.createEquipment(equipmentDTO);
+                    return true;
+                } catch (EquipmentAlreadyRegisteredException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(created, is(equalTo(1)));
+        assertThat(equipmentRepository.count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenStockIsIncrementedConcurrentlyThenNoUpdateIsLostAndMaxIsRespected() throws Exception {
+        // given
+        // adjusted and deleted first: the increments then run on connections that sent both, as they do in production
+        EquipmentDTO deletedEquipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140150009").build().toEquipmentDTO());
+        equipmentService.increment(deletedEquipmentDTO.getId(), 1);
+        equipmentService.deleteById(deletedEquipmentDTO.getId());
+        EquipmentDTO equipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder()
+                .max(500)
+                .quantity(0)
+                .build()
+                .toEquipmentDTO());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> increments = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < equipmentDTO.getMax() + ATTEMPTS; i++) {
+            increments.add(executor.submit(() -> {
+                start.await();
+                try {
+                    equipmentService.increment(equipmentDTO.getId(), 1);
+                    return true;
+                } catch (EquipmentsExceededException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int incremented = 0;
+        for (Future<Boolean> increment : increments) {
+            if (increment.get()) {
+                incremented++;
+            }
+        }
+        executor.shutdown();
+
+        // then
+        int persistedQuantity = equipmentRepository.findById(equipmentDTO.getId()).orElseThrow().getQuantity();
+        assertThat(incremented, is(equalTo(persistedQuantity)));
+        assertThat(persistedQuantity, is(equalTo(equipmentDTO.getMax())));
+    }
+
+    @Test
+    void whenAnImportedNpIsRegisteredAfterTheDuplicateCheckThenTheChunkFallsBackToRowByRowInserts() {
+        // given
+        EquipmentDTO racingEquipmentDTO = EquipmentDTOBuilder.builder().np("140150001").build().toEquipmentDTO();
+        EquipmentDTO newEquipmentDTO = EquipmentDTOBuilder.builder().np("140150002").build().toEquipmentDTO();
+        // registers the NP between the duplicate check and the batch insert, as a concurrent request would
+        EquipmentRepository racingRepository = mock(EquipmentRepository.class, delegatesTo(equipmentRepository));
+        doAnswer(invocation -> {
+            equipmentService.createEquipment(racingEquipmentDTO);
+            return Collections.emptyList();
+        }).when(racingRepository).findRegisteredNps(anyCollection());
+        EquipmentImportService equipmentImportService = new EquipmentImportService(racingRepository, equipmentService,
+                equipmentStatsCounter, entityManager, validator, transactionTemplate);
+
+        // when
+        EquipmentImportResultDTO result = equipmentImportService.importEquipments(Arrays.asList(racingEquipmentDTO, newEquipmentDTO).iterator());
+
+        // then
+        assertThat(result.getCreated(), is(equalTo(1)));
+        assertThat(result.getRows().get(0).getStatus(), is(equalTo(EquipmentImportStatus.ALREADY_REGISTERED)));
+        assertThat(result.getRows().get(1).getStatus(), is(equalTo(EquipmentImportStatus.CREATED)));
+        assertThat(equipmentRepository.count(), is(equalTo(2L)));
+    }
+}
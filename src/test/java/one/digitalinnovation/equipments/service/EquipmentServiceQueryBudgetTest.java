@@ -0,0 +1,98 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import one.digitalinnovation.equipments.utils.QueryCount;
+import one.digitalinnovation.equipments.utils.QueryCountExtension;
+import one.digitalinnovation.equipments.utils.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Round trip budgets of the hot paths against the embedded database: a change that adds a query to one of them fails here.
+ */
+@SpringBootTest
+@ExtendWith(QueryCountExtension.class)
+public class EquipmentServiceQueryBudgetTest {
+
+    // the next block of pooled ids is fetched whenever the current one runs out, whatever ran before
+    private static final int ID_BLOCK_FETCHES = 1;
+
+    @Autowired
+    private EquipmentService equipmentService;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @AfterEach
+    void tearDown() {
+        equipmentRepository.deleteAll();
+    }
+
+    @Test
+    void whenEquipmentIsCreatedThenOnlyTheInsertAndAtMostOneIdBlockFetchAreSent(QueryCounter queryCounter) throws Throwable {
+        // given
+        // the first id of the context fetches two blocks from the sequence, so it is taken before measuring
+        equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140159009").build().toEquipmentDTO());
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().np("140159001").build().toEquipmentDTO();
+
+        // then
+        queryCounter.assertWithinBudget(1 + ID_BLOCK_FETCHES, 0, () -> equipmentService.createEquipment(equipmentDTO));
+    }
+
+    @Test
+    void whenEquipmentIsFoundTwiceThenTheSecondLookupIsServedFromTheCache(QueryCounter queryCounter) throws Throwable {
+        // given
+        EquipmentDTO equipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140159002").build().toEquipmentDTO());
+
+        // then
+        queryCounter.assertWithinBudget(1, 1, () -> equipmentService.findByNp(equipmentDTO.getNp()));
+        queryCounter.assertWithinBudget(0, 0, () -> equipmentService.findByNp(equipmentDTO.getNp()));
+    }
+
+    @Test
+    void whenStockIsIncrementedThenOneUpdateAndOneReadAreSent(QueryCounter queryCounter) throws Throwable {
+        // given
+        EquipmentDTO equipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140159003").build().toEquipmentDTO());
+
+        // then
+        queryCounter.assertWithinBudget(2, 1, () -> equipmentService.increment(equipmentDTO.getId(), 1));
+    }
+
+    @Test
+    void whenEquipmentIsDeletedThenTheLockedReadAndTheDeleteAreSent(QueryCounter queryCounter) throws Throwable {
+        // given
+        EquipmentDTO equipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140159004").build().toEquipmentDTO());
+        EquipmentDTO otherEquipmentDTO = equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("140159008").build().toEquipmentDTO());
+
+        // then
+        queryCounter.assertWithinBudget(2, 0, () -> equipmentService.deleteById(equipmentDTO.getId()));
+        queryCounter.assertWithinBudget(2, 0, () -> equipmentService.deleteByNp(otherEquipmentDTO.getNp()));
+    }
+
+    @Test
+    void whenAPageIsListedOrSearchedThenOneQueryIsSent(QueryCounter queryCounter) throws Throwable {
+        // given
+        for (int i = 5; i <= 7; i++) {
+            equipmentService.createEquipment(EquipmentDTOBuilder.builder().np("14015900" + i).build().toEquipmentDTO());
+        }
+        EquipmentFilterDTO filter = EquipmentFilterDTO.builder().brand("FLYGT").build();
+
+        // when
+        QueryCount listed = queryCounter.assertWithinBudget(1, 3, () -> equipmentService.listPage(null, 2));
+        QueryCount searched = queryCounter.assertWithinBudget(1, 3, () -> equipmentService.searchPage(filter, null, 2));
+
+        // then
+        assertThat(listed.getQueries(), is(equalTo(1L)));
+        assertThat(searched.getQueries(), is(equalTo(1L)));
+    }
+}
@@ -1,23 +1,50 @@
 package one.digitalinnovation.equipments.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.cache.EquipmentCache;
+import one.digitalinnovation.equipments.cache.EquipmentReadReplica;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.cache.NpPrefixIndex;
+import one.digitalinnovation.equipments.dto.EquipmentChangesDTO;
 import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteBatchDTO;
+import one.digitalinnovation.equipments.dto.EquipmentDeleteResultDTO;
+import one.digitalinnovation.equipments.dto.EquipmentFilterDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
 import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import one.digitalinnovation.equipments.enums.EquipmentType;
 import one.digitalinnovation.equipments.exception.EquipmentAlreadyRegisteredException;
 import one.digitalinnovation.equipments.exception.EquipmentCodeException;
 import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
 import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
 import one.digitalinnovation.equipments.mapper.EquipmentMapper;
 import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -28,10 +55,38 @@ import static org.mockito.Mockito.*;
 public class EquipmentServiceTest {
 
     private static final long INVALID_EQUIPMENT_ID = 1L;
+    private static final int QUANTITY_TO_ADJUST = 10;
 
     @Mock
     private EquipmentRepository equipmentRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EquipmentStockLedger equipmentStockLedger;
+
+    @Mock
+    private NpPrefixIndex npPrefixIndex;
+
+    @Spy
+    private EquipmentCache equipmentCache = new EquipmentCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+    @Spy
+    private NpCodeValidator npCodeValidator = new NpCodeValidator(false);
+
+    @Spy
+    private EquipmentChangeLog equipmentChangeLog = new EquipmentChangeLog(100);
+
+    @Mock
+    private EquipmentSnapshotService equipmentSnapshotService;
+
+    @Mock
+    private EquipmentReadReplica equipmentReadReplica;
+
+    @Mock
+    private EquipmentStatsCounter equipmentStatsCounter;
+
     private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
 
     @InjectMocks
@@ -49,6 +104,27 @@ public class EquipmentServiceTest {
     }
 
 
+    @Test
+    void whenEquipmentTypeIsOmittedThenItIsTakenFromTheNp() throws EquipmentCodeException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().np("140472830").type(null).build().toEquipmentDTO();
+
+        // when
+        equipmentService.verifyNpCode(equipmentDTO);
+
+        // then
+        assertThat(equipmentDTO.getType(), is(equalTo(EquipmentType.PUMP)));
+    }
+
+    @Test
+    void whenEquipmentTypeDoesNotMatchTheNpThenAnExceptionShouldBeThrown() {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().np("140472830").type(EquipmentType.MOTOR).build().toEquipmentDTO();
+
+        // then
+        assertThrows(EquipmentCodeException.class, () -> equipmentService.verifyNpCode(equipmentDTO));
+    }
+
     @Test
     void whenEquipmentInformedThenItShouldBeCreated() throws EquipmentAlreadyRegisteredException, EquipmentCodeException {
         // given
@@ -56,29 +132,56 @@ public class EquipmentServiceTest {
         Equipment expectedSavedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
 
         // when
-        when(equipmentRepository.findByNp(expectedEquipmentDTO.getNp())).thenReturn(Optional.empty());
-        when(equipmentRepository.save(expectedSavedEquipment)).thenReturn(expectedSavedEquipment);
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenReturn(expectedSavedEquipment);
 
         //then
         EquipmentDTO createdEquipmentDTO = equipmentService.createEquipment(expectedEquipmentDTO);
 
         assertThat(createdEquipmentDTO.getId(), is(equalTo(expectedEquipmentDTO.getId())));
         assertThat(createdEquipmentDTO.getNp(), is(equalTo(expectedEquipmentDTO.getNp())));
+        verify(npPrefixIndex, times(1)).add(expectedEquipmentDTO.getNp());
+        verify(equipmentStatsCounter, times(1)).add(expectedEquipmentDTO.getBrand(), expectedEquipmentDTO.getType());
     }
 
     @Test
     void whenAlreadyRegisteredEquipmentInformedThenAnExceptionShouldBeThrown() {
         // given
         EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
-        Equipment duplicatedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
 
         // when
-        when(equipmentRepository.findByNp(expectedEquipmentDTO.getNp())).thenReturn(Optional.of(duplicatedEquipment));
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenThrow(integrityViolation("PUBLIC." + Equipment.NP_UNIQUE_CONSTRAINT.toUpperCase(Locale.ROOT) + "_INDEX_C"));
 
         // then
         assertThrows(EquipmentAlreadyRegisteredException.class, () -> equipmentService.createEquipment(expectedEquipmentDTO));
     }
 
+    @Test
+    void whenAnotherConstraintIsViolatedOnCreateThenTheViolationIsRethrown() {
+        // given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenThrow(integrityViolation("PUBLIC.PRIMARY_KEY_4"));
+
+        // then
+        assertThrows(DataIntegrityViolationException.class, () -> equipmentService.createEquipment(expectedEquipmentDTO));
+    }
+
+    @Test
+    void whenEquipmentIsCreatedThenTheClientIdIsIgnoredAndNoLookupIsMade() throws EquipmentAlreadyRegisteredException, EquipmentCodeException {
+        // given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedSavedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+
+        // when
+        when(equipmentRepository.saveAndFlush(argThat((Equipment equipment) -> equipment.getId() == null))).thenReturn(expectedSavedEquipment);
+
+        // then
+        equipmentService.createEquipment(expectedEquipmentDTO);
+
+        verify(equipmentRepository, never()).findByNp(expectedEquipmentDTO.getNp());
+    }
+
     @Test
     void whenValidEquipmentNameIsGivenThenReturnAEquipment() throws EquipmentNotFoundException {
         // given
@@ -94,6 +197,40 @@ public class EquipmentServiceTest {
         assertThat(foundEquipmentDTO, is(equalTo(expectedFoundEquipmentDTO)));
     }
 
+    @Test
+    void whenSnapshotIsServedThenFindByNpDoesNotQueryTheDatabase() throws EquipmentNotFoundException {
+        // given
+        EquipmentDTO expectedFoundEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        // when
+        when(equipmentSnapshotService.findByNp(expectedFoundEquipmentDTO.getNp())).thenReturn(Optional.of(expectedFoundEquipmentDTO));
+
+        // then
+        EquipmentDTO foundEquipmentDTO = equipmentService.findByNp(expectedFoundEquipmentDTO.getNp());
+
+        assertThat(foundEquipmentDTO, is(equalTo(expectedFoundEquipmentDTO)));
+        verifyNoInteractions(equipmentRepository);
+    }
+
+    @Test
+    void whenReadReplicaIsServingThenATypeOnlySearchDoesNotQueryTheDatabase() {
+        // given
+        EquipmentDTO expectedFoundEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        EquipmentFilterDTO filter = EquipmentFilterDTO.builder().type(expectedFoundEquipmentDTO.getType()).build();
+
+        // when
+        when(equipmentReadReplica.isServing()).thenReturn(true);
+        when(equipmentReadReplica.findByType(expectedFoundEquipmentDTO.getType(), 0L, EquipmentService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(Collections.singletonList(expectedFoundEquipmentDTO));
+
+        // then
+        EquipmentPageDTO page = equipmentService.searchPage(filter, null, null);
+
+        assertThat(page.getContent(), contains(expectedFoundEquipmentDTO));
+        assertThat(page.getNext(), is(nullValue()));
+        verifyNoInteractions(equipmentRepository);
+    }
+
     @Test
     void whenNotRegisteredEquipmentNameIsGivenThenThrowAnException() {
         // given
@@ -137,16 +274,368 @@ public class EquipmentServiceTest {
     void whenExclusionIsCalledWithValidIdThenAEquipmentShouldBeDeleted() throws EquipmentNotFoundException {
         // given
         EquipmentDTO expectedDeletedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
-        Equipment expectedDeletedEquipment = equipmentMapper.toModel(expectedDeletedEquipmentDTO);
 
         // when
-        when(equipmentRepository.findById(expectedDeletedEquipmentDTO.getId())).thenReturn(Optional.of(expectedDeletedEquipment));
-        doNothing().when(equipmentRepository).deleteById(expectedDeletedEquipmentDTO.getId());
+        when(equipmentRepository.deleteByIds(Collections.singleton(expectedDeletedEquipmentDTO.getId())))
+                .thenReturn(Collections.singletonMap(expectedDeletedEquipmentDTO.getId(), expectedDeletedEquipmentDTO));
 
         // then
         equipmentService.deleteById(expectedDeletedEquipmentDTO.getId());
 
-        verify(equipmentRepository, times(1)).findById(expectedDeletedEquipmentDTO.getId());
-        verify(equipmentRepository, times(1)).deleteById(expectedDeletedEquipmentDTO.getId());
+        verify(equipmentRepository, never()).findById(expectedDeletedEquipmentDTO.getId());
+        verify(equipmentStockLedger, times(1)).forget(expectedDeletedEquipmentDTO.getId());
+        verify(equipmentCache, times(1)).invalidate(expectedDeletedEquipmentDTO.getNp());
+        verify(npPrefixIndex, times(1)).remove(expectedDeletedEquipmentDTO.getNp());
+        verify(equipmentStatsCounter, times(1)).remove(expectedDeletedEquipmentDTO.getBrand(), expectedDeletedEquipmentDTO.getType());
+    }
+
+    @Test
+    void whenExclusionIsCalledWithInvalidIdThenAnExceptionShouldBeThrown() {
+        // when
+        when(equipmentRepository.deleteByIds(Collections.singleton(INVALID_EQUIPMENT_ID))).thenReturn(Collections.emptyMap());
+
+        // then
+        assertThrows(EquipmentNotFoundException.class, () -> equipmentService.deleteById(INVALID_EQUIPMENT_ID));
+        verifyNoInteractions(npPrefixIndex);
+    }
+
+    @Test
+    void whenExclusionIsCalledWithValidNpThenAEquipmentShouldBeDeleted() throws EquipmentNotFoundException {
+        // given
+        EquipmentDTO expectedDeletedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.deleteByNps(Collections.singleton(expectedDeletedEquipmentDTO.getNp())))
+                .thenReturn(Collections.singletonMap(expectedDeletedEquipmentDTO.getId(), expectedDeletedEquipmentDTO));
+
+        // then
+        equipmentService.deleteByNp(expectedDeletedEquipmentDTO.getNp());
+
+        verify(equipmentStockLedger, times(1)).forget(expectedDeletedEquipmentDTO.getId());
+        verify(npPrefixIndex, times(1)).remove(expectedDeletedEquipmentDTO.getNp());
+    }
+
+    @Test
+    void whenBatchExclusionIsCalledThenOneStatementIsSentPerChunkAndMissingKeysAreReported() {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= EquipmentService.DELETE_CHUNK_SIZE + 1; id++) {
+            ids.add(id);
+        }
+        EquipmentDeleteBatchDTO batch = new EquipmentDeleteBatchDTO(ids, Arrays.asList("140150001", "140150002"));
+
+        // when
+        when(equipmentRepository.deleteByIds(anyCollection())).thenReturn(Collections.singletonMap(1L, EquipmentDTO.builder().id(1L).np("140150009").build()), Collections.emptyMap());
+        when(equipmentRepository.deleteByNps(anyCollection())).thenReturn(Collections.singletonMap(2L, EquipmentDTO.builder().id(2L).np("140150001").build()));
+
+        // then
+        EquipmentDeleteResultDTO result = equipmentService.deleteAll(batch);
+
+        assertThat(result.getDeleted(), is(equalTo(2)));
+        assertThat(result.getNotFoundIds(), hasSize(EquipmentService.DELETE_CHUNK_SIZE - 1));
+        assertThat(result.getNotFoundIds(), everyItem(greaterThan(2L)));
+        assertThat(result.getNotFoundNps(), Matchers.contains("140150002"));
+        verify(equipmentRepository, times(2)).deleteByIds(anyCollection());
+        verify(equipmentRepository, times(1)).deleteByNps(anyCollection());
+        verify(npPrefixIndex, times(1)).remove("140150009");
+        verify(npPrefixIndex, times(1)).remove("140150001");
+    }
+
+    @Test
+    void whenSuggestIsCalledWithATooLargeLimitThenTheLimitIsCapped() {
+        // when
+        when(npPrefixIndex.suggest("14015", EquipmentService.MAX_SUGGESTIONS)).thenReturn(Collections.singletonList("140152830"));
+
+        // then
+        List<String> suggestions = equipmentService.suggest(" 14015 ", 1000);
+
+        assertThat(suggestions, Matchers.contains("140152830"));
+    }
+
+    @Test
+    void whenListPageIsCalledThenReturnAPageWithTheNextCursor() {
+        // given
+        Equipment firstEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(1L).np("140150001").build().toEquipmentDTO());
+        Equipment secondEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(2L).np("140150002").build().toEquipmentDTO());
+
+        // when
+        when(equipmentRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(firstEquipment, secondEquipment));
+
+        // then
+        EquipmentPageDTO page = equipmentService.listPage(null, 1);
+
+        assertThat(page.getContent(), hasSize(1));
+        assertThat(page.getContent().get(0).getId(), is(equalTo(firstEquipment.getId())));
+        assertThat(page.getNext(), is(equalTo(firstEquipment.getId())));
+    }
+
+    @Test
+    void whenListPageReachesTheEndThenNoNextCursorIsReturned() {
+        // given
+        Equipment lastEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(2L).build().toEquipmentDTO());
+
+        // when
+        when(equipmentRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, EquipmentService.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(Collections.singletonList(lastEquipment));
+
+        // then
+        EquipmentPageDTO page = equipmentService.listPage(1L, null);
+
+        assertThat(page.getContent(), hasSize(1));
+        assertThat(page.getNext(), is(nullValue()));
+    }
+
+    @Test
+    void whenSearchPageIsCalledThenTheFilterIsPassedToTheRepository() {
+        // given
+        Equipment firstEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(1L).np("140150001").build().toEquipmentDTO());
+        Equipment secondEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(2L).np("140150002").build().toEquipmentDTO());
+        EquipmentFilterDTO filter = EquipmentFilterDTO.builder().type(firstEquipment.getType()).build();
+
+        // when
+        when(equipmentRepository.search(filter, 0L, 2)).thenReturn(Arrays.asList(firstEquipment, secondEquipment));
+
+        // then
+        EquipmentPageDTO page = equipmentService.searchPage(filter, null, 1);
+
+        assertThat(page.getContent(), hasSize(1));
+        assertThat(page.getNext(), is(equalTo(firstEquipment.getId())));
+    }
+
+    @Test
+    void whenPublishAllIsSubscribedThenPagesAreReadUntilTheLastOne() {
+        // given
+        Equipment firstEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(1L).np("140150001").build().toEquipmentDTO());
+        List<Equipment> firstPage = new ArrayList<>();
+        for (int i = 0; i <= EquipmentService.DEFAULT_PAGE_SIZE; i++) {
+            firstPage.add(firstEquipment);
+        }
+        Equipment lastEquipment = equipmentMapper.toModel(EquipmentDTOBuilder.builder().id(2L).np("140150002").build().toEquipmentDTO());
+
+        // when
+        when(equipmentRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, EquipmentService.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(firstPage);
+        when(equipmentRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, EquipmentService.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(Collections.singletonList(lastEquipment));
+
+        // then
+        List<EquipmentDTO> publishedEquipments = equipmentService.publishAll().collectList().block();
+
+        assertThat(publishedEquipments, hasSize(EquipmentService.DEFAULT_PAGE_SIZE + 1));
+        assertThat(publishedEquipments.get(EquipmentService.DEFAULT_PAGE_SIZE).getId(), is(equalTo(lastEquipment.getId())));
+        verify(equipmentRepository, times(2)).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void whenStreamAllIsCalledThenEveryEquipmentIsConsumedAndDetached() {
+        // given
+        EquipmentDTO expectedFoundEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedFoundEquipment = equipmentMapper.toModel(expectedFoundEquipmentDTO);
+        List<EquipmentDTO> consumedEquipments = new ArrayList<>();
+
+        // when
+        when(equipmentRepository.streamAll()).thenReturn(Stream.of(expectedFoundEquipment));
+
+        // then
+        equipmentService.streamAll(consumedEquipments::add);
+
+        assertThat(consumedEquipments, contains(expectedFoundEquipmentDTO));
+        verify(entityManager, times(1)).detach(expectedFoundEquipment);
+    }
+
+    @Test
+    void whenSameEquipmentNpIsQueriedTwiceThenTheRepositoryIsHitOnce() throws EquipmentNotFoundException {
+        // given
+        EquipmentDTO expectedFoundEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedFoundEquipment = equipmentMapper.toModel(expectedFoundEquipmentDTO);
+
+        // when
+        when(equipmentRepository.findByNp(expectedFoundEquipment.getNp())).thenReturn(Optional.of(expectedFoundEquipment));
+
+        // then
+        EquipmentDTO firstFoundEquipmentDTO = equipmentService.findByNp(expectedFoundEquipmentDTO.getNp());
+        firstFoundEquipmentDTO.setBrand("CHANGED");
+        EquipmentDTO secondFoundEquipmentDTO = equipmentService.findByNp(expectedFoundEquipmentDTO.getNp());
+
+        assertThat(secondFoundEquipmentDTO, is(equalTo(expectedFoundEquipmentDTO)));
+        verify(equipmentRepository, times(1)).findByNp(expectedFoundEquipmentDTO.getNp());
+    }
+
+    @Test
+    void whenNotRegisteredEquipmentNpIsQueriedTwiceThenTheMissIsCached() {
+        // given
+        EquipmentDTO expectedFoundEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findByNp(expectedFoundEquipmentDTO.getNp())).thenReturn(Optional.empty());
+
+        // then
+        assertThrows(EquipmentNotFoundException.class, () -> equipmentService.findByNp(expectedFoundEquipmentDTO.getNp()));
+        assertThrows(EquipmentNotFoundException.class, () -> equipmentService.findByNp(expectedFoundEquipmentDTO.getNp()));
+        verify(equipmentRepository, times(1)).findByNp(expectedFoundEquipmentDTO.getNp());
+    }
+
+    @Test
+    void whenEquipmentIsCreatedThenItsCachedEntryIsInvalidated() throws EquipmentAlreadyRegisteredException, EquipmentCodeException {
+        // given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedSavedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+
+        // when
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenReturn(expectedSavedEquipment);
+
+        // then
+        equipmentService.createEquipment(expectedEquipmentDTO);
+
+        verify(equipmentCache, times(1)).invalidate(expectedEquipmentDTO.getNp());
+    }
+
+    @Test
+    void whenEquipmentIsCreatedOrDeletedThenTheCatalogueRevisionMovesForward() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment savedEquipment = equipmentMapper.toModel(equipmentDTO);
+        String initialRevision = equipmentService.catalogueRevision();
+
+        // when
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenReturn(savedEquipment);
+        when(equipmentRepository.deleteByIds(Collections.singleton(equipmentDTO.getId())))
+                .thenReturn(Collections.singletonMap(equipmentDTO.getId(), equipmentDTO));
+
+        // then
+        equipmentService.createEquipment(equipmentDTO);
+        String createdRevision = equipmentService.catalogueRevision();
+        equipmentService.deleteById(equipmentDTO.getId());
+
+        assertThat(createdRevision, is(not(equalTo(initialRevision))));
+        assertThat(equipmentService.catalogueRevision(), is(not(equalTo(createdRevision))));
+    }
+
+    @Test
+    void whenChangesAreListedThenTheyCarryTheCurrentStateOfTheEquipment() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment savedEquipment = equipmentMapper.toModel(equipmentDTO);
+        String initialRevision = equipmentService.catalogueRevision();
+
+        // when
+        when(equipmentRepository.saveAndFlush(ArgumentMatchers.any(Equipment.class))).thenReturn(savedEquipment);
+        when(equipmentRepository.findAllById(Collections.singletonList(equipmentDTO.getId()))).thenReturn(Collections.singletonList(savedEquipment));
+
+        // then
+        equipmentService.createEquipment(equipmentDTO);
+        EquipmentChangesDTO changes = equipmentService.changesSince(initialRevision, null);
+
+        assertThat(changes.isReset(), is(false));
+        assertThat(changes.getRevision(), is(equalTo(equipmentService.catalogueRevision())));
+        assertThat(changes.getChanges(), hasSize(1));
+        assertThat(changes.getChanges().get(0).getType(), is(equalTo(EquipmentChangeType.CREATED)));
+        assertThat(changes.getChanges().get(0).getEquipment(), is(equalTo(equipmentDTO)));
+    }
+
+    @Test
+    void whenChangesAreListedSinceAnUnknownRevisionThenAResetIsReturned() {
+        // when
+        EquipmentChangesDTO changes = equipmentService.changesSince("unknown-1", null);
+
+        // then
+        assertThat(changes.isReset(), is(true));
+        assertThat(changes.getChanges(), is(empty()));
+        verifyNoInteractions(equipmentRepository);
+    }
+
+    @Test
+    void whenIncrementIsCalledThenIncrementEquipmentStock() throws EquipmentNotFoundException, EquipmentsExceededException {
+        //given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+        expectedEquipment.setQuantity(expectedEquipment.getQuantity() + QUANTITY_TO_ADJUST);
+
+        //when
+        when(equipmentRepository.incrementQuantity(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST)).thenReturn(1);
+        when(equipmentRepository.findById(expectedEquipmentDTO.getId())).thenReturn(Optional.of(expectedEquipment));
+
+        //then
+        EquipmentDTO incrementedEquipmentDTO = equipmentService.increment(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST);
+
+        assertThat(incrementedEquipmentDTO.getQuantity(), is(equalTo(expectedEquipmentDTO.getQuantity() + QUANTITY_TO_ADJUST)));
+        verify(equipmentRepository, never()).save(ArgumentMatchers.any(Equipment.class));
+        verify(equipmentCache, times(1)).invalidate(expectedEquipmentDTO.getNp());
+    }
+
+    @Test
+    void whenWriteBehindIsEnabledThenIncrementIsAcceptedByTheLedger() throws EquipmentNotFoundException, EquipmentsExceededException {
+        //given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+
+        //when
+        when(equipmentStockLedger.isEnabled()).thenReturn(true);
+        when(equipmentStockLedger.increment(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST)).thenReturn(expectedEquipmentDTO);
+
+        //then
+        equipmentService.increment(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST);
+
+        verify(equipmentRepository, never()).incrementQuantity(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST);
+    }
+
+    @Test
+    void whenIncrementIsGreaterThanMaxThenThrowException() {
+        //given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+
+        //when
+        when(equipmentRepository.incrementQuantity(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST)).thenReturn(0);
+        when(equipmentRepository.findById(expectedEquipmentDTO.getId())).thenReturn(Optional.of(expectedEquipment));
+
+        //then
+        assertThrows(EquipmentsExceededException.class, () -> equipmentService.increment(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST));
+    }
+
+    @Test
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+        //when
+        when(equipmentRepository.incrementQuantity(INVALID_EQUIPMENT_ID, QUANTITY_TO_ADJUST)).thenReturn(0);
+        when(equipmentRepository.findById(INVALID_EQUIPMENT_ID)).thenReturn(Optional.empty());
+
+        //then
+        assertThrows(EquipmentNotFoundException.class, () -> equipmentService.increment(INVALID_EQUIPMENT_ID, QUANTITY_TO_ADJUST));
+    }
+
+    @Test
+    void whenDecrementIsCalledThenDecrementEquipmentStock() throws EquipmentNotFoundException, EquipmentsInsufficientException {
+        //given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+        expectedEquipment.setQuantity(expectedEquipment.getQuantity() - QUANTITY_TO_ADJUST);
+
+        //when
+        when(equipmentRepository.decrementQuantity(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST)).thenReturn(1);
+        when(equipmentRepository.findById(expectedEquipmentDTO.getId())).thenReturn(Optional.of(expectedEquipment));
+
+        //then
+        EquipmentDTO decrementedEquipmentDTO = equipmentService.decrement(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST);
+
+        assertThat(decrementedEquipmentDTO.getQuantity(), is(equalTo(expectedEquipmentDTO.getQuantity() - QUANTITY_TO_ADJUST)));
+    }
+
+    @Test
+    void whenDecrementIsGreaterThanStockThenThrowException() {
+        //given
+        EquipmentDTO expectedEquipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Equipment expectedEquipment = equipmentMapper.toModel(expectedEquipmentDTO);
+
+        //when
+        when(equipmentRepository.decrementQuantity(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST * 2)).thenReturn(0);
+        when(equipmentRepository.findById(expectedEquipmentDTO.getId())).thenReturn(Optional.of(expectedEquipment));
+
+        //then
+        assertThrows(EquipmentsInsufficientException.class, () -> equipmentService.decrement(expectedEquipmentDTO.getId(), QUANTITY_TO_ADJUST * 2));
+    }
+
+    private static DataIntegrityViolationException integrityViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
     }
 }
@@ -0,0 +1,146 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.cache.EquipmentSnapshot;
+import one.digitalinnovation.equipments.cache.EquipmentStatsCounter;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static one.digitalinnovation.equipments.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Starts on an empty database of its own with a snapshot on disk, and holds the restore before it reloads the
+ * statistics, so the requests made while restoring are deterministic.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class EquipmentSnapshotRestoreTest {
+
+    private static final String EQUIPMENTS_PATH = "/api/v1/equipments";
+    private static final long LAST_SNAPSHOT_ID = 700L;
+    private static final CountDownLatch RESTORE_RELEASED = new CountDownLatch(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EquipmentSnapshotService equipmentSnapshotService;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path path = Files.createTempDirectory("equipments").resolve("equipments.snapshot");
+        try (EquipmentSnapshot.Writer writer = new EquipmentSnapshot.Writer(path)) {
+            writer.add(snapshotted(1L, "140150101", "FLYGT"));
+            writer.add(snapshotted(2L, "140150102", "FLYGT"));
+            writer.add(snapshotted(LAST_SNAPSHOT_ID, "140150103", "KSB"));
+            writer.commit();
+        }
+        registry.add("equipments.snapshot.path", path::toString);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:snapshot-restore;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    @Test
+    void whenTheDatabaseIsRestoredFromTheSnapshotThenWritesWaitForItAndNewIdsFollowTheRestoredOnes() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().np("140150104").build().toEquipmentDTO();
+
+        try {
+            // when
+            assertThat(equipmentSnapshotService.isRestoring(), is(true));
+
+            // then
+            mockMvc.perform(post(EQUIPMENTS_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(equipmentDTO)))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+            mockMvc.perform(get(EQUIPMENTS_PATH + "/stats"))
+                    .andExpect(status().isServiceUnavailable());
+            mockMvc.perform(get(EQUIPMENTS_PATH + "/140150103"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(equalTo((int) LAST_SNAPSHOT_ID))));
+        } finally {
+            RESTORE_RELEASED.countDown();
+        }
+
+        // when
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (equipmentSnapshotService.isRestoring() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // then
+        assertThat(equipmentSnapshotService.isRestoring(), is(false));
+        mockMvc.perform(post(EQUIPMENTS_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(equipmentDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(greaterThan((int) LAST_SNAPSHOT_ID))));
+        mockMvc.perform(get(EQUIPMENTS_PATH + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(equalTo(4))))
+                .andExpect(jsonPath("$.byBrand.FLYGT", is(equalTo(3))))
+                .andExpect(jsonPath("$.byBrand.KSB", is(equalTo(1))));
+    }
+
+    @TestConfiguration
+    static class HeldRestoreConfig {
+
+        // the restore starts as soon as the application is ready, so it is held from the start
+        @Bean
+        @Primary
+        EquipmentStatsCounter heldRestoreStatsCounter(EquipmentRepository equipmentRepository, MeterRegistry meterRegistry) {
+            return new EquipmentStatsCounter(equipmentRepository, meterRegistry) {
+                @Override
+                public void reload() {
+                    if (Thread.currentThread().getName().equals("equipment-snapshot-restore")) {
+                        try {
+                            RESTORE_RELEASED.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    super.reload();
+                }
+            };
+        }
+    }
+
+    private static EquipmentDTO snapshotted(Long id, String np, String brand) {
+        return EquipmentDTOBuilder.builder()
+                .id(id)
+                .np(np)
+                .brand(brand)
+                .version(0L)
+                .updatedAt(Instant.parse("2024-05-01T10:15:30Z"))
+                .build()
+                .toEquipmentDTO();
+    }
+}
@@ -0,0 +1,163 @@
+package one.digitalinnovation.equipments.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.cache.EquipmentChangeLog;
+import one.digitalinnovation.equipments.cache.EquipmentCache;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.entity.Equipment;
+import one.digitalinnovation.equipments.enums.EquipmentChangeType;
+import one.digitalinnovation.equipments.exception.EquipmentNotFoundException;
+import one.digitalinnovation.equipments.exception.EquipmentsExceededException;
+import one.digitalinnovation.equipments.exception.EquipmentsInsufficientException;
+import one.digitalinnovation.equipments.mapper.EquipmentMapper;
+import one.digitalinnovation.equipments.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EquipmentStockLedgerTest {
+
+    private static final long INVALID_EQUIPMENT_ID = 2L;
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    @Mock
+    private EquipmentCache equipmentCache;
+
+    @Mock
+    private EquipmentChangeLog equipmentChangeLog;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final EquipmentMapper equipmentMapper = EquipmentMapper.INSTANCE;
+
+    private EquipmentStockLedger equipmentStockLedger;
+
+    @BeforeEach
+    void setUp() {
+        equipmentStockLedger = new EquipmentStockLedger(equipmentRepository, equipmentCache, equipmentChangeLog, jdbcTemplate,
+                transactionTemplate, new SimpleMeterRegistry(), true);
+    }
+
+    @Test
+    void whenIncrementsAreAcceptedThenNothingIsWrittenUntilTheFlush() throws EquipmentNotFoundException, EquipmentsExceededException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().quantity(10).max(50).build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findById(equipmentDTO.getId())).thenReturn(Optional.of(equipmentMapper.toModel(equipmentDTO)));
+
+        // then
+        equipmentStockLedger.increment(equipmentDTO.getId(), 5);
+        EquipmentDTO incrementedEquipmentDTO = equipmentStockLedger.increment(equipmentDTO.getId(), 5);
+
+        assertThat(incrementedEquipmentDTO.getQuantity(), is(equalTo(20)));
+        verify(equipmentRepository, times(1)).findById(equipmentDTO.getId());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void whenIncrementExceedsTheMaxCountingPendingDeltasThenAnExceptionIsThrown() throws EquipmentNotFoundException, EquipmentsExceededException {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().quantity(40).max(50).build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findById(equipmentDTO.getId())).thenReturn(Optional.of(equipmentMapper.toModel(equipmentDTO)));
+
+        // then
+        equipmentStockLedger.increment(equipmentDTO.getId(), 10);
+        assertThrows(EquipmentsExceededException.class, () -> equipmentStockLedger.increment(equipmentDTO.getId(), 1));
+    }
+
+    @Test
+    void whenDecrementGoesBelowZeroThenAnExceptionIsThrown() {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().quantity(5).build().toEquipmentDTO();
+
+        // when
+        when(equipmentRepository.findById(equipmentDTO.getId())).thenReturn(Optional.of(equipmentMapper.toModel(equipmentDTO)));
+
+        // then
+        assertThrows(EquipmentsInsufficientException.class, () -> equipmentStockLedger.decrement(equipmentDTO.getId(), 6));
+    }
+
+    @Test
+    void whenUnknownEquipmentIsAdjustedThenAnExceptionIsThrown() {
+        // when
+        when(equipmentRepository.findById(INVALID_EQUIPMENT_ID)).thenReturn(Optional.empty());
+
+        // then
+        assertThrows(EquipmentNotFoundException.class, () -> equipmentStockLedger.increment(INVALID_EQUIPMENT_ID, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenFlushIsCalledThenDeltasAreCoalescedIntoOneUpdatePerEquipment() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().quantity(10).max(50).build().toEquipmentDTO();
+        Equipment equipment = equipmentMapper.toModel(equipmentDTO);
+        ArgumentCaptor<List<Object[]>> batchCaptor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        when(equipmentRepository.findById(equipmentDTO.getId())).thenReturn(Optional.of(equipment));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), batchCaptor.capture())).thenReturn(new int[]{1});
+
+        // then
+        equipmentStockLedger.increment(equipmentDTO.getId(), 5);
+        equipmentStockLedger.increment(equipmentDTO.getId(), 3);
+        equipmentStockLedger.decrement(equipmentDTO.getId(), 2);
+        equipmentStockLedger.flush();
+        equipmentStockLedger.flush();
+
+        assertThat(batchCaptor.getValue(), hasSize(1));
+        assertThat(batchCaptor.getValue().get(0), is(arrayContaining(new Object[]{6, equipmentDTO.getId()})));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(equipmentCache, times(1)).invalidate(equipmentDTO.getNp());
+        verify(equipmentChangeLog, times(1)).record(eq(EquipmentChangeType.UPDATED), argThat(change -> change.getQuantity() == 16));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenFlushFailsThenDeltasAreKeptForTheNextFlush() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().quantity(10).max(50).build().toEquipmentDTO();
+        ArgumentCaptor<List<Object[]>> batchCaptor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        when(equipmentRepository.findById(equipmentDTO.getId())).thenReturn(Optional.of(equipmentMapper.toModel(equipmentDTO)));
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), batchCaptor.capture())).thenReturn(new int[]{1});
+
+        // then
+        equipmentStockLedger.increment(equipmentDTO.getId(), 5);
+        equipmentStockLedger.flush();
+        equipmentStockLedger.flush();
+
+        assertThat(batchCaptor.getValue().get(0), is(arrayContaining(new Object[]{5, equipmentDTO.getId()})));
+    }
+}
@@ -0,0 +1,88 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.builder.EquipmentDTOBuilder;
+import one.digitalinnovation.equipments.dto.EquipmentDTO;
+import one.digitalinnovation.equipments.dto.EquipmentPageDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EquipmentWarmUpTest {
+
+    @Mock
+    private EquipmentService equipmentService;
+
+    @Test
+    void whenWarmUpRunsThenEveryIterationReadsTheFirstPageThroughTheService() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        EquipmentWarmUp equipmentWarmUp = new EquipmentWarmUp(equipmentService, 3, 1);
+
+        // when
+        when(equipmentService.listPage(null, EquipmentWarmUp.PAGE_SIZE)).thenReturn(new EquipmentPageDTO(Collections.singletonList(equipmentDTO), null));
+
+        // then
+        equipmentWarmUp.run(null);
+
+        verify(equipmentService, times(3)).listPage(null, EquipmentWarmUp.PAGE_SIZE);
+        verify(equipmentService, times(3)).findByNp(equipmentDTO.getNp());
+        verify(equipmentService, times(3)).suggest("14015", null);
+        verify(equipmentService, never()).createEquipment(any());
+    }
+
+    @Test
+    void whenWarmUpRunsOnSeveralThreadsThenTheyShareTheIterations() throws Exception {
+        // given
+        EquipmentDTO equipmentDTO = EquipmentDTOBuilder.builder().build().toEquipmentDTO();
+        Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        EquipmentWarmUp equipmentWarmUp = new EquipmentWarmUp(equipmentService, 20, 4);
+
+        // when
+        when(equipmentService.listPage(null, EquipmentWarmUp.PAGE_SIZE)).thenAnswer(invocation -> {
+            readers.add(Thread.currentThread());
+            return new EquipmentPageDTO(Collections.singletonList(equipmentDTO), null);
+        });
+
+        // then
+        equipmentWarmUp.run(null);
+
+        verify(equipmentService, times(20)).listPage(null, EquipmentWarmUp.PAGE_SIZE);
+        verify(equipmentService, times(20)).findByNp(equipmentDTO.getNp());
+        assertThat(readers, not(hasItem(Thread.currentThread())));
+    }
+
+    @Test
+    void whenTheCatalogueIsEmptyThenTheWarmUpStopsAfterTheFirstRead() {
+        // given
+        EquipmentWarmUp equipmentWarmUp = new EquipmentWarmUp(equipmentService, 3, 1);
+
+        // when
+        when(equipmentService.listPage(null, EquipmentWarmUp.PAGE_SIZE)).thenReturn(new EquipmentPageDTO(Collections.emptyList(), null));
+
+        // then
+        equipmentWarmUp.run(null);
+
+        verify(equipmentService, times(1)).listPage(null, EquipmentWarmUp.PAGE_SIZE);
+        verifyNoMoreInteractions(equipmentService);
+    }
+
+    @Test
+    void whenWarmUpIsDisabledThenTheServiceIsNotCalled() {
+        // when
+        new EquipmentWarmUp(equipmentService, 0, 1).run(null);
+
+        // then
+        verifyNoInteractions(equipmentService);
+    }
+}
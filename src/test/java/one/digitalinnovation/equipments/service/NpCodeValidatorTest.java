@@ -0,0 +1,37 @@
+package one.digitalinnovation.equipments.service;
+
+import one.digitalinnovation.equipments.enums.EquipmentType;
+import one.digitalinnovation.equipments.exception.EquipmentCodeException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NpCodeValidatorTest {
+
+    private final NpCodeValidator npCodeValidator = new NpCodeValidator(false);
+
+    private final NpCodeValidator checkDigitValidator = new NpCodeValidator(true);
+
+    @Test
+    void whenNpStartsWithAKnownCodeThenItsTypeIsReturned() throws EquipmentCodeException {
+        assertThat(npCodeValidator.validate("140152830"), is(equalTo(EquipmentType.MOTORPUMP)));
+        assertThat(npCodeValidator.validate("140060001"), is(equalTo(EquipmentType.TRANSFORMER)));
+    }
+
+    @Test
+    void whenNpIsMalformedThenAnExceptionShouldBeThrown() {
+        assertThrows(EquipmentCodeException.class, () -> npCodeValidator.validate("140160001"));
+        assertThrows(EquipmentCodeException.class, () -> npCodeValidator.validate("14015283"));
+        assertThrows(EquipmentCodeException.class, () -> npCodeValidator.validate("14015283A"));
+        assertThrows(EquipmentCodeException.class, () -> npCodeValidator.validate(null));
+    }
+
+    @Test
+    void whenCheckDigitIsEnabledThenOnlyNpsWithAValidLuhnDigitAreAccepted() throws EquipmentCodeException {
+        assertThat(checkDigitValidator.validate("140152836"), is(equalTo(EquipmentType.MOTORPUMP)));
+        assertThrows(EquipmentCodeException.class, () -> checkDigitValidator.validate("140152830"));
+    }
+}
@@ -0,0 +1,16 @@
+package one.digitalinnovation.equipments.utils;
+
+import lombok.Value;
+
+@Value
+public class QueryCount {
+
+    // statements prepared, a JDBC batch counting once: the database round trips
+    long statements;
+
+    // JPQL and criteria queries executed
+    long queries;
+
+    // rows fetched and turned into entities
+    long entitiesLoaded;
+}
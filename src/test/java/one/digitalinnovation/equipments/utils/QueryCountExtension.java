@@ -0,0 +1,38 @@
+package one.digitalinnovation.equipments.utils;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hands a {@link QueryCounter} to the tests of a Spring context backed by the embedded database,
+ * reading the Hibernate statistics of its {@link EntityManagerFactory}. The statistics are enabled for the test
+ * and set back as they were once it is over, since the context is shared with other test classes.
+ */
+public class QueryCountExtension implements ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryCountExtension.class);
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == QueryCounter.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Statistics statistics = SpringExtension.getApplicationContext(extensionContext)
+                .getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        boolean enabled = statistics.isStatisticsEnabled();
+        extensionContext.getStore(NAMESPACE).put(Statistics.class,
+                (ExtensionContext.Store.CloseableResource) () -> statistics.setStatisticsEnabled(enabled));
+        statistics.setStatisticsEnabled(true);
+        return new QueryCounter(statistics);
+    }
+}
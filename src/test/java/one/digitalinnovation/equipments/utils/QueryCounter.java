@@ -0,0 +1,38 @@
+package one.digitalinnovation.equipments.utils;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.function.Executable;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * Measures the database work of one operation and fails when it goes over its budget.
+ * The statistics are global to the session factory, so nothing else may use the database while measuring.
+ */
+public class QueryCounter {
+
+    private final Statistics statistics;
+
+    QueryCounter(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public QueryCount measure(Executable operation) throws Throwable {
+        statistics.clear();
+        operation.execute();
+        return new QueryCount(statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount());
+    }
+
+    /**
+     * Runs the operation and fails if it used more round trips or loaded more entities than allowed.
+     */
+    public QueryCount assertWithinBudget(int maxStatements, int maxEntitiesLoaded, Executable operation) throws Throwable {
+        QueryCount queryCount = measure(operation);
+        if (queryCount.getStatements() > maxStatements || queryCount.getEntitiesLoaded() > maxEntitiesLoaded) {
+            throw new AssertionFailedError(String.format("Expected at most %d statements and %d entities loaded, but was %s",
+                    maxStatements, maxEntitiesLoaded, queryCount));
+        }
+        return queryCount;
+    }
+}